@@ -3,10 +3,18 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
 
 /** Implements a breadth-first traversal of a graph.  Generally, the
  *  client will extend this class, overriding the visit method as desired
  *  (by default, it does nothing).
+ *
+ *  For large graphs, traverseLevels instead searches level by level in
+ *  parallel, switching between expanding the frontier through successors
+ *  and searching for it among the predecessors of unreached vertices as
+ *  the frontier grows and shrinks (see LevelSearch).  It produces the
+ *  distance in edges of each vertex from the start and a tree of parents,
+ *  and, if asked, visits each level as a batch once it is found.
  *  @author Nicholas Moy.
  */
 public class BreadthFirstTraversal extends Traversal {
@@ -14,6 +22,7 @@ public class BreadthFirstTraversal extends Traversal {
     /** A breadth-first Traversal of G. */
     protected BreadthFirstTraversal(Graph G) {
         super(G, new LinkedList<Integer>());
+        _pool = ForkJoinPool.commonPool();
     }
 
     @Override
@@ -21,4 +30,80 @@ public class BreadthFirstTraversal extends Traversal {
         return super.visit(v);
     }
 
+    /** Find the levels of traverseLevels on POOL (by default the common
+     *  pool). */
+    public void setPool(ForkJoinPool pool) {
+        _pool = pool;
+    }
+
+    /** If VISITING, then traverseLevels marks and visits the vertices of
+     *  each level, in increasing order, on the calling thread, after the
+     *  level is found and before the next is sought; it stops as soon as
+     *  visit returns false.  Initially false. */
+    public void setVisiting(boolean visiting) {
+        _visiting = visiting;
+    }
+
+    /** Search the graph from V0 level by level, in parallel, replacing the
+     *  results of any earlier call.  The search works on a frozen copy of
+     *  the graph (the graph itself, if it is frozen), which is kept, with
+     *  the search's working storage, for later calls until the graph
+     *  changes.  The marks left by traverse are not consulted. */
+    public void traverseLevels(int v0) {
+        int modCount = getGraph().modCount();
+        if (_levels == null || modCount < 0 || modCount != _modCount) {
+            _levels = new LevelSearch(getGraph().freeze());
+            _modCount = modCount;
+        }
+        if (!_visiting) {
+            _levels.run(v0, _pool, null);
+        } else {
+            _levels.run(v0, _pool, level -> {
+                for (int v : level) {
+                    mark(v);
+                    if (!visit(v)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+    }
+
+    /** Returns the number of edges on a shortest path from the start of
+     *  the last traverseLevels to each vertex, indexed by vertex, with -1
+     *  for vertices not reached.  The array is not copied, and is reused
+     *  by the next traverseLevels.  Throws IllegalStateException if
+     *  traverseLevels has not been called. */
+    public int[] hopDistances() {
+        return levels().distances();
+    }
+
+    /** Returns the parent of each vertex in a tree of the shortest paths
+     *  found by the last traverseLevels, indexed by vertex, with 0 for the
+     *  start and for vertices not reached.  The array is not copied, and
+     *  is reused by the next traverseLevels.  Throws IllegalStateException
+     *  if traverseLevels has not been called. */
+    public int[] parents() {
+        return levels().parents();
+    }
+
+    /** Returns the search of the last traverseLevels.  Throws
+     *  IllegalStateException if there is none. */
+    LevelSearch levels() {
+        if (_levels == null) {
+            throw new IllegalStateException("no traverseLevels yet");
+        }
+        return _levels;
+    }
+
+    /** Pool on which traverseLevels runs. */
+    private ForkJoinPool _pool;
+    /** True iff traverseLevels visits each level. */
+    private boolean _visiting;
+    /** The search of the last traverseLevels, or null. */
+    private LevelSearch _levels;
+    /** The graph's modCount when _levels was made. */
+    private int _modCount;
+
 }
@@ -0,0 +1,732 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** A contraction hierarchy for fast point-to-point shortest paths in a
+ *  fixed, non-negatively weighted graph.  Preprocessing contracts the
+ *  vertices one at a time, in order of increasing importance, adding a
+ *  shortcut edge (u, w) around each contracted vertex v whenever the path
+ *  u, v, w might be the only shortest path from u to w (as determined by a
+ *  bounded "witness" search).  Each shortcut remembers the vertex it
+ *  bypasses, so that it can be unpacked into the original edges.
+ *
+ *  A query then runs Dijkstra's algorithm forward from the source and
+ *  backward from the destination, in each case following only edges that
+ *  lead to more important vertices, and typically settles only a few
+ *  hundred vertices even on large road maps.  For example,
+ *      ContractionHierarchy ch = new ContractionHierarchy(G, weights);
+ *      List<Integer> path = ch.path(source, dest);
+ *  gives the vertices of a shortest path in G from SOURCE to DEST.
+ *
+ *  Queries reuse internal arrays, so an instance may be queried by only
+ *  one thread at a time.
+ *
+ *  @author Nicholas Moy.
+ */
+public class ContractionHierarchy {
+
+    /** A hierarchy for G, whose edge weights are given by WEIGHTS.
+     *  Vertices are ordered by edge difference (shortcuts added less edges
+     *  removed) plus the number of neighbors already contracted. */
+    public ContractionHierarchy(Graph G, WeightFunction weights) {
+        Contraction c = new Contraction(G, weights);
+        c.contractAll();
+        _maxVertex = G.maxVertex();
+        _edgeSize = G.edgeSize();
+        _fingerprint = fingerprint(G, weights);
+        _rank = c._rank;
+
+        int n = _maxVertex + 1;
+        _upStart = new int[n + 1];
+        _downStart = new int[n + 1];
+        for (int v = 1; v < n; v += 1) {
+            _upStart[v + 1] = _upStart[v] + c._outN[v];
+            _downStart[v + 1] = _downStart[v] + c._inN[v];
+        }
+        _upTo = new int[_upStart[n]];
+        _upWeight = new double[_upStart[n]];
+        _upMid = new int[_upStart[n]];
+        _downFrom = new int[_downStart[n]];
+        _downWeight = new double[_downStart[n]];
+        _downMid = new int[_downStart[n]];
+        for (int v = 1; v < n; v += 1) {
+            int k = c._outN[v], p = _upStart[v];
+            System.arraycopy(c._outTo[v], 0, _upTo, p, k);
+            System.arraycopy(c._outWeight[v], 0, _upWeight, p, k);
+            System.arraycopy(c._outMid[v], 0, _upMid, p, k);
+            k = c._inN[v];
+            p = _downStart[v];
+            System.arraycopy(c._inFrom[v], 0, _downFrom, p, k);
+            System.arraycopy(c._inWeight[v], 0, _downWeight, p, k);
+            System.arraycopy(c._inMid[v], 0, _downMid, p, k);
+        }
+        initQuery();
+    }
+
+    /** A hierarchy read from IN, as written by write. */
+    private ContractionHierarchy(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a contraction hierarchy file");
+        }
+        if (in.readInt() != VERSION) {
+            throw new IOException("unsupported contraction hierarchy "
+                                  + "version");
+        }
+        _maxVertex = in.readInt();
+        _edgeSize = in.readInt();
+        _fingerprint = in.readLong();
+        int n = _maxVertex + 1;
+        _rank = readInts(in, n);
+        _upStart = readInts(in, n + 1);
+        _upTo = readInts(in, _upStart[n]);
+        _upWeight = readDoubles(in, _upStart[n]);
+        _upMid = readInts(in, _upStart[n]);
+        _downStart = readInts(in, n + 1);
+        _downFrom = readInts(in, _downStart[n]);
+        _downWeight = readDoubles(in, _downStart[n]);
+        _downMid = readInts(in, _downStart[n]);
+        initQuery();
+    }
+
+    /** Returns the hierarchy saved in the file named NAME by write. */
+    public static ContractionHierarchy read(String name) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                 Files.newInputStream(Paths.get(name))))) {
+            return new ContractionHierarchy(in);
+        }
+    }
+
+    /** Save me in the file named NAME. */
+    public void write(String name) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(
+                     Files.newOutputStream(Paths.get(name))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(_maxVertex);
+            out.writeInt(_edgeSize);
+            out.writeLong(_fingerprint);
+            writeInts(out, _rank);
+            writeInts(out, _upStart);
+            writeInts(out, _upTo);
+            writeDoubles(out, _upWeight);
+            writeInts(out, _upMid);
+            writeInts(out, _downStart);
+            writeInts(out, _downFrom);
+            writeDoubles(out, _downWeight);
+            writeInts(out, _downMid);
+        }
+    }
+
+    /** Returns true iff I (almost certainly) describe G with edge weights
+     *  WEIGHTS: that is, G has the same largest vertex and number of edges
+     *  as the graph I was built from, and the same fingerprint of its
+     *  vertices, edges, and weights.  Takes time O(V + E). */
+    public boolean fits(Graph G, WeightFunction weights) {
+        return G.maxVertex() == _maxVertex && G.edgeSize() == _edgeSize
+            && fingerprint(G, weights) == _fingerprint;
+    }
+
+    /** Returns a 64-bit hash of the vertices and edges of G and the
+     *  weights WEIGHTS gives the edges, which does not depend on the order
+     *  in which G lists them. */
+    static long fingerprint(Graph G, WeightFunction weights) {
+        long[] hash = new long[1];
+        for (IntIteration verts = G.verticesInt(); verts.hasNext(); ) {
+            int v = verts.nextInt();
+            hash[0] += mix(v);
+            G.forEachSuccessor(v, w -> {
+                long bits = Double.doubleToLongBits(weights.weight(v, w));
+                hash[0] += mix(mix(((long) v << Integer.SIZE) | w) ^ bits);
+            });
+        }
+        return hash[0];
+    }
+
+    /** Returns X with its bits thoroughly mixed (the finalizer of
+     *  SplitMix64). */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /** Returns the length of a shortest path from SOURCE to DEST, or
+     *  positive infinity if there is none. */
+    public double distance(int source, int dest) {
+        search(source, dest);
+        return _best;
+    }
+
+    /** Returns the vertices of a shortest path from SOURCE to DEST,
+     *  starting with SOURCE and ending with DEST, or null if there is no
+     *  such path. */
+    public List<Integer> path(int source, int dest) {
+        search(source, dest);
+        if (_meet == 0) {
+            return null;
+        }
+        ArrayList<Integer> result = new ArrayList<>();
+        result.add(source);
+        int edges;
+        edges = 0;
+        for (int v = _meet; v != source; v = _fwdPred[v]) {
+            edges += 1;
+        }
+        int[] chain = new int[edges + 1];
+        int k;
+        k = edges;
+        for (int v = _meet; v != source; v = _fwdPred[v]) {
+            chain[k] = v;
+            k -= 1;
+        }
+        chain[0] = source;
+        for (int i = 1; i <= edges; i += 1) {
+            unpack(chain[i - 1], chain[i], _upMid[_fwdEdge[chain[i]]],
+                   result);
+        }
+        for (int v = _meet; v != dest; v = _bwdNext[v]) {
+            unpack(v, _bwdNext[v], _downMid[_bwdEdge[v]], result);
+        }
+        return result;
+    }
+
+    /** Run a query from SOURCE to DEST, setting _best and _meet. */
+    private void search(int source, int dest) {
+        for (int i = 0; i < _touchedSize; i += 1) {
+            int v = _touched[i];
+            _fwdDist[v] = _bwdDist[v] = Double.POSITIVE_INFINITY;
+        }
+        _touchedSize = 0;
+        _fwdHeap.clear();
+        _bwdHeap.clear();
+        _best = Double.POSITIVE_INFINITY;
+        _meet = 0;
+        if (!valid(source) || !valid(dest)) {
+            return;
+        }
+        touch(source);
+        touch(dest);
+        _fwdDist[source] = 0;
+        _bwdDist[dest] = 0;
+        _fwdHeap.insert(source, 0);
+        _bwdHeap.insert(dest, 0);
+        if (source == dest) {
+            _best = 0;
+            _meet = source;
+        }
+
+        while (true) {
+            boolean fwd = !_fwdHeap.isEmpty()
+                && _fwdHeap.key(_fwdHeap.peek()) < _best;
+            boolean bwd = !_bwdHeap.isEmpty()
+                && _bwdHeap.key(_bwdHeap.peek()) < _best;
+            if (fwd && (!bwd || _fwdHeap.key(_fwdHeap.peek())
+                        <= _bwdHeap.key(_bwdHeap.peek()))) {
+                int x = _fwdHeap.poll();
+                for (int i = _upStart[x]; i < _upStart[x + 1]; i += 1) {
+                    int y = _upTo[i];
+                    double d = _fwdDist[x] + _upWeight[i];
+                    if (d < _fwdDist[y]) {
+                        touch(y);
+                        _fwdDist[y] = d;
+                        _fwdPred[y] = x;
+                        _fwdEdge[y] = i;
+                        _fwdHeap.insertOrDecrease(y, d);
+                        meet(y, d + _bwdDist[y]);
+                    }
+                }
+            } else if (bwd) {
+                int x = _bwdHeap.poll();
+                for (int i = _downStart[x]; i < _downStart[x + 1]; i += 1) {
+                    int y = _downFrom[i];
+                    double d = _bwdDist[x] + _downWeight[i];
+                    if (d < _bwdDist[y]) {
+                        touch(y);
+                        _bwdDist[y] = d;
+                        _bwdNext[y] = x;
+                        _bwdEdge[y] = i;
+                        _bwdHeap.insertOrDecrease(y, d);
+                        meet(y, _fwdDist[y] + d);
+                    }
+                }
+            } else {
+                break;
+            }
+        }
+    }
+
+    /** Record a path of length LENGTH through V, if it is the shortest
+     *  found so far. */
+    private void meet(int v, double length) {
+        if (length < _best) {
+            _best = length;
+            _meet = v;
+        }
+    }
+
+    /** Returns true iff V is a vertex number I know of. */
+    private boolean valid(int v) {
+        return v > 0 && v <= _maxVertex;
+    }
+
+    /** Note that the query distances of V may have been changed. */
+    private void touch(int v) {
+        if (_fwdDist[v] == Double.POSITIVE_INFINITY
+            && _bwdDist[v] == Double.POSITIVE_INFINITY) {
+            _touched[_touchedSize] = v;
+            _touchedSize += 1;
+        }
+    }
+
+    /** Append to RESULT the vertices after A on the original path for the
+     *  edge (A, B), which is a shortcut around MID, or an original edge if
+     *  MID is 0. */
+    private void unpack(int a, int b, int mid, List<Integer> result) {
+        int[] stack = new int[3 * UNPACK_DEPTH];
+        int top;
+        top = 0;
+        while (true) {
+            if (mid == 0) {
+                result.add(b);
+                if (top == 0) {
+                    return;
+                }
+                top -= 3;
+                a = stack[top];
+                b = stack[top + 1];
+                mid = stack[top + 2];
+            } else {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top] = mid;
+                stack[top + 1] = b;
+                stack[top + 2] = middle(mid, b);
+                top += 3;
+                int m = middle(a, mid);
+                b = mid;
+                mid = m;
+            }
+        }
+    }
+
+    /** Returns the vertex bypassed by my edge (A, B), or 0 if it is an
+     *  original edge. */
+    private int middle(int a, int b) {
+        if (_rank[a] < _rank[b]) {
+            for (int i = _upStart[a]; i < _upStart[a + 1]; i += 1) {
+                if (_upTo[i] == b) {
+                    return _upMid[i];
+                }
+            }
+        } else {
+            for (int i = _downStart[b]; i < _downStart[b + 1]; i += 1) {
+                if (_downFrom[i] == a) {
+                    return _downMid[i];
+                }
+            }
+        }
+        throw new IllegalStateException("corrupt contraction hierarchy");
+    }
+
+    /** Allocate the arrays used by queries. */
+    private void initQuery() {
+        int n = _maxVertex + 1;
+        _fwdDist = new double[n];
+        _bwdDist = new double[n];
+        Arrays.fill(_fwdDist, Double.POSITIVE_INFINITY);
+        Arrays.fill(_bwdDist, Double.POSITIVE_INFINITY);
+        _fwdPred = new int[n];
+        _fwdEdge = new int[n];
+        _bwdNext = new int[n];
+        _bwdEdge = new int[n];
+        _touched = new int[n];
+        _fwdHeap = new IndexedHeap(n);
+        _bwdHeap = new IndexedHeap(n);
+    }
+
+    /** Returns N ints read from IN. */
+    private static int[] readInts(DataInputStream in, int n)
+        throws IOException {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            result[i] = in.readInt();
+        }
+        return result;
+    }
+
+    /** Returns N doubles read from IN. */
+    private static double[] readDoubles(DataInputStream in, int n)
+        throws IOException {
+        double[] result = new double[n];
+        for (int i = 0; i < n; i += 1) {
+            result[i] = in.readDouble();
+        }
+        return result;
+    }
+
+    /** Write the elements of A to OUT. */
+    private static void writeInts(DataOutputStream out, int[] a)
+        throws IOException {
+        for (int x : a) {
+            out.writeInt(x);
+        }
+    }
+
+    /** Write the elements of A to OUT. */
+    private static void writeDoubles(DataOutputStream out, double[] a)
+        throws IOException {
+        for (double x : a) {
+            out.writeDouble(x);
+        }
+    }
+
+    /** First int of a saved hierarchy ("CHGR"). */
+    private static final int MAGIC = 0x43484752;
+    /** Current version of the saved format. */
+    private static final int VERSION = 2;
+    /** Initial depth of the stack used to unpack shortcuts. */
+    private static final int UNPACK_DEPTH = 16;
+
+    /** Largest vertex of the original graph. */
+    private final int _maxVertex;
+    /** Number of edges in the original graph. */
+    private final int _edgeSize;
+    /** Fingerprint of the original graph and its weights. */
+    private final long _fingerprint;
+    /** Position of each vertex in the contraction order. */
+    private final int[] _rank;
+    /** Upward edges (u, _upTo[i]), for _upStart[u] <= i < _upStart[u+1],
+     *  with their weights and bypassed vertices (0 for original edges). */
+    private final int[] _upStart, _upTo, _upMid;
+    /** Weights of upward edges. */
+    private final double[] _upWeight;
+    /** Downward edges (_downFrom[i], v), for _downStart[v] <= i <
+     *  _downStart[v+1], with their weights and bypassed vertices. */
+    private final int[] _downStart, _downFrom, _downMid;
+    /** Weights of downward edges. */
+    private final double[] _downWeight;
+
+    /** Query distances from the source and to the destination. */
+    private double[] _fwdDist, _bwdDist;
+    /** Query predecessor of each vertex on its path from the source, and
+     *  the index of the upward edge used. */
+    private int[] _fwdPred, _fwdEdge;
+    /** Query successor of each vertex on its path to the destination, and
+     *  the index of the downward edge used. */
+    private int[] _bwdNext, _bwdEdge;
+    /** Vertices whose query distances are set, _touched[0 ..
+     *  _touchedSize-1]. */
+    private int[] _touched;
+    /** Number of touched vertices. */
+    private int _touchedSize;
+    /** Query fringes. */
+    private IndexedHeap _fwdHeap, _bwdHeap;
+    /** Length of the shortest path found by the last query. */
+    private double _best;
+    /** Vertex of that path settled from both sides, or 0 if none. */
+    private int _meet;
+
+    /** The state of preprocessing: a weighted graph with shortcuts, from
+     *  which vertices are contracted in turn.  Contracting a vertex removes
+     *  it from the lists of its neighbors, but leaves its own lists alone,
+     *  so that afterwards each vertex's out-edges lead to, and its in-edges
+     *  come from, vertices contracted after it. */
+    private static class Contraction {
+
+        /** A contraction of G with weights WEIGHTS, with no vertices
+         *  contracted. */
+        Contraction(Graph G, WeightFunction weights) {
+            _G = G;
+            int n = G.maxVertex() + 1;
+            _outTo = new int[n][];
+            _outMid = new int[n][];
+            _outWeight = new double[n][];
+            _outN = new int[n];
+            _inFrom = new int[n][];
+            _inMid = new int[n][];
+            _inWeight = new double[n][];
+            _inN = new int[n];
+            for (int v = 1; v < n; v += 1) {
+                _outTo[v] = new int[INITIAL_DEGREE];
+                _outMid[v] = new int[INITIAL_DEGREE];
+                _outWeight[v] = new double[INITIAL_DEGREE];
+                _inFrom[v] = new int[INITIAL_DEGREE];
+                _inMid[v] = new int[INITIAL_DEGREE];
+                _inWeight[v] = new double[INITIAL_DEGREE];
+            }
+            _contractedNeighbors = new int[n];
+            _rank = new int[n];
+            _mark = new int[n];
+            _dist = new double[n];
+            Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+            _touched = new int[n];
+            _heap = new IndexedHeap(n);
+
+            for (int[] e : G.edges()) {
+                double w = weights.weight(e[0], e[1]);
+                addEdge(e[0], e[1], w, 0);
+                if (!G.isDirected()) {
+                    addEdge(e[1], e[0], w, 0);
+                }
+            }
+        }
+
+        /** Contract all vertices, setting _rank. */
+        void contractAll() {
+            IndexedHeap order = new IndexedHeap(_rank.length);
+            for (IntIteration verts = _G.verticesInt(); verts.hasNext(); ) {
+                int v = verts.nextInt();
+                order.insert(v, priority(v));
+            }
+            int rank;
+            rank = 0;
+            while (!order.isEmpty()) {
+                int v = order.poll();
+                double p = priority(v);
+                if (!order.isEmpty() && p > order.key(order.peek())) {
+                    order.insert(v, p);
+                    continue;
+                }
+                shortcuts(v, true);
+                rank += 1;
+                _rank[v] = rank;
+                for (int i = 0; i < _outN[v]; i += 1) {
+                    removeIn(_outTo[v][i], v);
+                }
+                for (int i = 0; i < _inN[v]; i += 1) {
+                    removeOut(_inFrom[v][i], v);
+                }
+                for (int i = 0; i < _outN[v]; i += 1) {
+                    neighborContracted(_outTo[v][i], rank, order);
+                }
+                for (int i = 0; i < _inN[v]; i += 1) {
+                    neighborContracted(_inFrom[v][i], rank, order);
+                }
+            }
+        }
+
+        /** Note that a neighbor of V has been contracted as number RANK,
+         *  and lower V's priority in ORDER if that reduces it.  (Increases
+         *  are found when V reaches the front of ORDER.) */
+        private void neighborContracted(int v, int rank, IndexedHeap order) {
+            if (_mark[v] != rank) {
+                _mark[v] = rank;
+                _contractedNeighbors[v] += 1;
+                double p = priority(v);
+                if (p < order.key(v)) {
+                    order.decreaseKey(v, p);
+                }
+            }
+        }
+
+        /** Returns the contraction priority of V: lower is contracted
+         *  sooner. */
+        private double priority(int v) {
+            return shortcuts(v, false) - _outN[v] - _inN[v]
+                + _contractedNeighbors[v];
+        }
+
+        /** Returns the number of shortcuts needed to contract V, adding
+         *  them to the graph iff ADD. */
+        private int shortcuts(int v, boolean add) {
+            int count;
+            count = 0;
+            for (int i = 0; i < _inN[v]; i += 1) {
+                int u = _inFrom[v][i];
+                double a = _inWeight[v][i];
+                double limit;
+                limit = 0;
+                for (int j = 0; j < _outN[v]; j += 1) {
+                    if (_outTo[v][j] != u) {
+                        limit = Math.max(limit, a + _outWeight[v][j]);
+                    }
+                }
+                witnessSearch(u, v, limit, add ? WITNESS_SETTLE_LIMIT
+                              : ESTIMATE_SETTLE_LIMIT);
+                for (int j = 0; j < _outN[v]; j += 1) {
+                    int w = _outTo[v][j];
+                    double length = a + _outWeight[v][j];
+                    if (w != u && _dist[w] > length) {
+                        count += 1;
+                        if (add) {
+                            addEdge(u, w, length, v);
+                        }
+                    }
+                }
+                clearSearch();
+            }
+            return count;
+        }
+
+        /** Set _dist to the distances from U, avoiding V, of the vertices
+         *  within LIMIT of U, stopping after settling MAXSETTLED
+         *  vertices. */
+        private void witnessSearch(int u, int v, double limit,
+                                   int maxSettled) {
+            _dist[u] = 0;
+            _touched[0] = u;
+            _touchedSize = 1;
+            _heap.insert(u, 0);
+            int settled;
+            settled = 0;
+            while (!_heap.isEmpty() && settled < maxSettled) {
+                int x = _heap.poll();
+                if (_dist[x] > limit) {
+                    break;
+                }
+                settled += 1;
+                for (int i = 0; i < _outN[x]; i += 1) {
+                    int y = _outTo[x][i];
+                    if (y == v) {
+                        continue;
+                    }
+                    double d = _dist[x] + _outWeight[x][i];
+                    if (d < _dist[y]) {
+                        if (_dist[y] == Double.POSITIVE_INFINITY) {
+                            _touched[_touchedSize] = y;
+                            _touchedSize += 1;
+                        }
+                        _dist[y] = d;
+                        _heap.insertOrDecrease(y, d);
+                    }
+                }
+            }
+        }
+
+        /** Reset the state of the last witness search. */
+        private void clearSearch() {
+            for (int i = 0; i < _touchedSize; i += 1) {
+                _dist[_touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            _touchedSize = 0;
+            _heap.clear();
+        }
+
+        /** Add an edge (U, V) of weight W bypassing MID (0 for an original
+         *  edge), or if there is already such an edge, reduce its weight
+         *  to W if that is smaller. */
+        private void addEdge(int u, int v, double w, int mid) {
+            if (u == v) {
+                return;
+            }
+            for (int i = 0; i < _outN[u]; i += 1) {
+                if (_outTo[u][i] == v) {
+                    if (w < _outWeight[u][i]) {
+                        _outWeight[u][i] = w;
+                        _outMid[u][i] = mid;
+                        for (int j = 0; j < _inN[v]; j += 1) {
+                            if (_inFrom[v][j] == u) {
+                                _inWeight[v][j] = w;
+                                _inMid[v][j] = mid;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+            int k = _outN[u];
+            if (k == _outTo[u].length) {
+                _outTo[u] = Arrays.copyOf(_outTo[u], 2 * k);
+                _outMid[u] = Arrays.copyOf(_outMid[u], 2 * k);
+                _outWeight[u] = Arrays.copyOf(_outWeight[u], 2 * k);
+            }
+            _outTo[u][k] = v;
+            _outMid[u][k] = mid;
+            _outWeight[u][k] = w;
+            _outN[u] = k + 1;
+            k = _inN[v];
+            if (k == _inFrom[v].length) {
+                _inFrom[v] = Arrays.copyOf(_inFrom[v], 2 * k);
+                _inMid[v] = Arrays.copyOf(_inMid[v], 2 * k);
+                _inWeight[v] = Arrays.copyOf(_inWeight[v], 2 * k);
+            }
+            _inFrom[v][k] = u;
+            _inMid[v][k] = mid;
+            _inWeight[v][k] = w;
+            _inN[v] = k + 1;
+        }
+
+        /** Remove V from the out-edges of U. */
+        private void removeOut(int u, int v) {
+            int last = _outN[u] - 1;
+            for (int i = 0; i <= last; i += 1) {
+                if (_outTo[u][i] == v) {
+                    _outTo[u][i] = _outTo[u][last];
+                    _outMid[u][i] = _outMid[u][last];
+                    _outWeight[u][i] = _outWeight[u][last];
+                    _outN[u] = last;
+                    return;
+                }
+            }
+        }
+
+        /** Remove V from the in-edges of U. */
+        private void removeIn(int u, int v) {
+            int last = _inN[u] - 1;
+            for (int i = 0; i <= last; i += 1) {
+                if (_inFrom[u][i] == v) {
+                    _inFrom[u][i] = _inFrom[u][last];
+                    _inMid[u][i] = _inMid[u][last];
+                    _inWeight[u][i] = _inWeight[u][last];
+                    _inN[u] = last;
+                    return;
+                }
+            }
+        }
+
+        /** Initial capacity of adjacency lists. */
+        private static final int INITIAL_DEGREE = 4;
+        /** Most vertices settled by one witness search.  Stopping early
+         *  only adds unnecessary shortcuts; it never loses paths. */
+        private static final int WITNESS_SETTLE_LIMIT = 100;
+        /** Most vertices settled by one witness search when only counting
+         *  shortcuts to compute a priority. */
+        private static final int ESTIMATE_SETTLE_LIMIT = 20;
+
+        /** The original graph. */
+        private final Graph _G;
+        /** Out-edges of each vertex (original and shortcut): targets,
+         *  bypassed vertices, and weights, with _outN[v] in use. */
+        private final int[][] _outTo, _outMid;
+        /** Weights of out-edges. */
+        private final double[][] _outWeight;
+        /** Number of out-edges of each vertex. */
+        private final int[] _outN;
+        /** In-edges of each vertex: sources, bypassed vertices, and
+         *  weights, with _inN[v] in use. */
+        private final int[][] _inFrom, _inMid;
+        /** Weights of in-edges. */
+        private final double[][] _inWeight;
+        /** Number of in-edges of each vertex. */
+        private final int[] _inN;
+        /** Number of contracted neighbors of each vertex. */
+        private final int[] _contractedNeighbors;
+        /** Position of each vertex in the contraction order (from 1). */
+        private final int[] _rank;
+        /** The rank of the last contracted neighbor of each vertex, used to
+         *  visit each neighbor once per contraction. */
+        private final int[] _mark;
+        /** Witness search distances. */
+        private final double[] _dist;
+        /** Vertices whose _dist is set, _touched[0 .. _touchedSize-1]. */
+        private final int[] _touched;
+        /** Number of touched vertices. */
+        private int _touchedSize;
+        /** Witness search fringe. */
+        private final IndexedHeap _heap;
+    }
+
+}
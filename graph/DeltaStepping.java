@@ -0,0 +1,376 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Parallel single-source shortest paths by delta-stepping (Meyer and
+ *  Sanders).  Vertices wait in buckets of width delta according to their
+ *  tentative distances.  The lowest nonempty bucket is emptied in phases:
+ *  each phase relaxes the light edges (weight at most delta) of all the
+ *  vertices in the bucket in parallel, which may refill it.  Once it stays
+ *  empty, the heavy edges of every vertex removed from it are relaxed in
+ *  one more parallel pass.  Tentative distances are kept in an
+ *  AtomicLongArray and lowered with compare-and-set, so relaxations need
+ *  no locks.  After the search, each reached vertex takes as predecessor a
+ *  neighbor whose distance plus the edge weight gives its own.
+ *
+ *  The results are the weights and predecessor tree that
+ *  ShortestPaths.setPaths produces for a search with no destination (up to
+ *  the choice among equally short paths).  A small delta does less
+ *  redundant work, and a large one gives each phase more parallelism; the
+ *  typical edge weight is a reasonable start.
+ *
+ *  The search works on a frozen copy of the graph made at construction,
+ *  so later changes to the graph are not seen.  The mutable graphs are
+ *  not synchronized, so the copy also lets the search's threads read the
+ *  graph while its owner goes on changing it; and the copy's contiguous
+ *  adjacency lists suit the parallel relaxations.  The weight function
+ *  must be safe to call from several threads at once.
+ *
+ *  @author Nicholas Moy.
+ */
+public class DeltaStepping {
+
+    /** A search of G, whose edge weights are given by WEIGHTS, using
+     *  buckets of width DELTA > 0. */
+    public DeltaStepping(Graph G, WeightFunction weights, double delta) {
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("delta must be positive");
+        }
+        _G = G.freeze();
+        _weights = weights;
+        _delta = delta;
+        _pool = ForkJoinPool.commonPool();
+        int n = _G.maxVertex() + 1;
+        _dist = new AtomicLongArray(n);
+        _preds = new int[n];
+        _phase = new int[n];
+        _removed = new int[n];
+    }
+
+    /** Run relaxations on POOL (by default the common pool). */
+    public void setPool(ForkJoinPool pool) {
+        _pool = pool;
+    }
+
+    /** Compute the shortest paths from SOURCE, replacing the results of
+     *  any earlier search. */
+    public void setPaths(int source) {
+        _source = source;
+        int n = _preds.length;
+        for (int v = 0; v < n; v += 1) {
+            _dist.set(v, INFINITY);
+        }
+        Arrays.fill(_preds, 0);
+        Arrays.fill(_phase, 0);
+        Arrays.fill(_removed, 0);
+        _phases = 0;
+        _rounds = 0;
+        _buckets = new TreeMap<>();
+        if (!_G.contains(source)) {
+            return;
+        }
+        _dist.set(source, 0L);
+        bucket(0).add(source);
+        while (!_buckets.isEmpty()) {
+            long i = _buckets.firstKey();
+            _rounds += 1;
+            IntList removed = new IntList();
+            for (IntList bucket = _buckets.remove(i); bucket != null;
+                 bucket = _buckets.remove(i)) {
+                relaxAll(current(bucket, i, removed), true);
+            }
+            relaxAll(removed, false);
+        }
+        _buckets = null;
+        findPredecessors();
+    }
+
+    /** Returns the length of a shortest path from the source to V, or
+     *  positive infinity if there is none. */
+    public double getWeight(int v) {
+        if (!_G.contains(v)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return distance(v);
+    }
+
+    /** Returns the predecessor of V in the tree of shortest paths, or 0 if
+     *  V is the source, is not reached, or is not in the graph. */
+    public int getPredecessor(int v) {
+        if (!_G.contains(v)) {
+            return 0;
+        }
+        return _preds[v];
+    }
+
+    /** Returns a list of vertices starting at the source and ending at V
+     *  that represents a shortest path to V, which must be reached. */
+    public List<Integer> pathTo(int v) {
+        Stack<Integer> stack = new Stack<>();
+        while (v != _source) {
+            stack.push(v);
+            v = getPredecessor(v);
+        }
+        List<Integer> path = new ArrayList<>();
+        path.add(_source);
+        while (!stack.isEmpty()) {
+            path.add(stack.pop());
+        }
+        return path;
+    }
+
+    /** Returns the vertices of BUCKET number I that still belong there and
+     *  have not already been taken in this phase, recording in REMOVED
+     *  those taken for the first time from bucket I. */
+    private IntList current(IntList bucket, long i, IntList removed) {
+        _phases += 1;
+        IntList frontier = new IntList();
+        for (int k = 0; k < bucket.size(); k += 1) {
+            int v = bucket.get(k);
+            if (_phase[v] != _phases && bucketOf(distance(v)) == i) {
+                _phase[v] = _phases;
+                frontier.add(v);
+                if (_removed[v] != _rounds) {
+                    _removed[v] = _rounds;
+                    removed.add(v);
+                }
+            }
+        }
+        return frontier;
+    }
+
+    /** Relax the light (if LIGHT) or heavy edges of the vertices in
+     *  FRONTIER in parallel, and put the vertices whose distances drop into
+     *  their buckets. */
+    private void relaxAll(IntList frontier, boolean light) {
+        List<Relax> tasks = new ArrayList<>();
+        for (int lo = 0; lo < frontier.size(); lo += GRAIN) {
+            tasks.add(new Relax(frontier, lo,
+                                Math.min(lo + GRAIN, frontier.size()),
+                                light));
+        }
+        if (tasks.size() == 1) {
+            tasks.get(0).compute();
+        } else if (tasks.size() > 1) {
+            _pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        for (Relax task : tasks) {
+            IntList improved = task._improved;
+            for (int k = 0; k < improved.size(); k += 1) {
+                int w = improved.get(k);
+                bucket(bucketOf(distance(w))).add(w);
+            }
+        }
+    }
+
+    /** Lower the distance of W to D if that is smaller, returning true iff
+     *  it was lowered. */
+    private boolean lower(int w, double d) {
+        long bits = Double.doubleToRawLongBits(d);
+        while (true) {
+            long old = _dist.get(w);
+            if (bits >= old) {
+                return false;
+            }
+            if (_dist.compareAndSet(w, old, bits)) {
+                return true;
+            }
+        }
+    }
+
+    /** Set the predecessor of every reached vertex other than the source,
+     *  in parallel.  A vertex takes a neighbor with a strictly smaller
+     *  distance where possible; the rest, which lie at the ends of
+     *  zero-length edges, are attached afterward by a search out from the
+     *  vertices already in the tree, so that the result has no cycles. */
+    private void findPredecessors() {
+        int n = _preds.length;
+        boolean[] pending = new boolean[n];
+        _pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>();
+                for (int lo = 1; lo < n; lo += GRAIN) {
+                    int start = lo, end = Math.min(lo + GRAIN, n);
+                    tasks.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            for (int v = start; v < end; v += 1) {
+                                pending[v] = !findPredecessor(v);
+                            }
+                        }
+                    });
+                }
+                invokeAll(tasks);
+            }
+        });
+        IntList queue = new IntList();
+        for (int v = 1; v < n; v += 1) {
+            if (!pending[v] && (v == _source || _preds[v] != 0)) {
+                queue.add(v);
+            }
+        }
+        for (int k = 0; k < queue.size(); k += 1) {
+            int u = queue.get(k);
+            double d = distance(u);
+            _G.forEachSuccessor(u, w -> {
+                if (pending[w] && d + _weights.weight(u, w) == distance(w)) {
+                    pending[w] = false;
+                    _preds[w] = u;
+                    queue.add(w);
+                }
+            });
+        }
+    }
+
+    /** Set the predecessor of V, if it is reached and is not the source,
+     *  to a vertex with a smaller distance from which an edge leads to V
+     *  and gives its distance.  Returns false iff V needs a predecessor
+     *  but none was found. */
+    private boolean findPredecessor(int v) {
+        double d = distance(v);
+        if (v == _source || d == Double.POSITIVE_INFINITY
+            || !_G.contains(v)) {
+            return true;
+        }
+        for (IntIteration preds = _G.predecessorsInt(v); preds.hasNext(); ) {
+            int u = preds.nextInt();
+            double du = distance(u);
+            if (du < d && du + _weights.weight(u, v) == d) {
+                _preds[v] = u;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the tentative distance of V. */
+    private double distance(int v) {
+        return Double.longBitsToDouble(_dist.get(v));
+    }
+
+    /** Returns the number of the bucket for distance D. */
+    private long bucketOf(double d) {
+        return (long) (d / _delta);
+    }
+
+    /** Returns bucket number I, creating it if needed. */
+    private IntList bucket(long i) {
+        return _buckets.computeIfAbsent(i, k -> new IntList());
+    }
+
+    /** The relaxation of one kind of edge out of part of a frontier. */
+    private class Relax extends RecursiveAction {
+
+        /** Relax the light (if LIGHT) or heavy edges out of
+         *  FRONTIER[LO .. HI-1]. */
+        Relax(IntList frontier, int lo, int hi, boolean light) {
+            _frontier = frontier;
+            _lo = lo;
+            _hi = hi;
+            _light = light;
+        }
+
+        @Override
+        protected void compute() {
+            for (int k = _lo; k < _hi; k += 1) {
+                int v = _frontier.get(k);
+                double d = distance(v);
+                _G.forEachSuccessor(v, w -> {
+                    double weight = _weights.weight(v, w);
+                    if ((weight <= _delta) == _light && lower(w, d + weight)) {
+                        _improved.add(w);
+                    }
+                });
+            }
+        }
+
+        /** The vertices being scanned. */
+        private final IntList _frontier;
+        /** The range of _frontier to scan. */
+        private final int _lo, _hi;
+        /** True iff light edges are relaxed. */
+        private final boolean _light;
+        /** Vertices whose distances this task lowered. */
+        private final IntList _improved = new IntList();
+    }
+
+    /** A growable list of ints. */
+    private static class IntList {
+
+        /** Returns the number of items. */
+        int size() {
+            return _size;
+        }
+
+        /** Returns item K. */
+        int get(int k) {
+            return _items[k];
+        }
+
+        /** Append V. */
+        void add(int v) {
+            if (_size == _items.length) {
+                _items = Arrays.copyOf(_items, 2 * _items.length);
+            }
+            _items[_size] = v;
+            _size += 1;
+        }
+
+        /** The items, _items[0 .. _size-1]. */
+        private int[] _items = new int[8];
+        /** Number of items. */
+        private int _size;
+    }
+
+    /** Number of frontier vertices (or vertex numbers) per task. */
+    private static final int GRAIN = 512;
+    /** The bits of positive infinity, the distance of unreached
+     *  vertices. */
+    private static final long INFINITY =
+        Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    /** The graph searched. */
+    private final Graph _G;
+    /** Its edge weights. */
+    private final WeightFunction _weights;
+    /** Bucket width. */
+    private final double _delta;
+    /** Pool on which relaxations run. */
+    private ForkJoinPool _pool;
+    /** The source of the last search. */
+    private int _source;
+    /** Tentative distances, as the bits of non-negative doubles (whose
+     *  order as longs is their order as doubles), indexed by vertex. */
+    private final AtomicLongArray _dist;
+    /** Predecessors, indexed by vertex. */
+    private final int[] _preds;
+    /** The last phase in which each vertex was taken from a bucket. */
+    private final int[] _phase;
+    /** The round (see _rounds) in which each vertex was last removed
+     *  from a bucket. */
+    private final int[] _removed;
+    /** Number of phases so far in this search. */
+    private int _phases;
+    /** Number of buckets emptied so far in this search, counting the
+     *  current one. */
+    private int _rounds;
+    /** The nonempty buckets of vertices by tentative distance, by bucket
+     *  number, so that empty stretches cost nothing however small the
+     *  bucket width. */
+    private TreeMap<Long, IntList> _buckets;
+}
@@ -0,0 +1,110 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.concurrent.ForkJoinPool;
+
+/** A timing of DeltaStepping against sequential Dijkstra (SimpleShortestPaths)
+ *  on a large grid with random weights, for 1, 2, 4, ... threads up to the
+ *  number of processors.  Run as
+ *      java graph.DeltaSteppingBenchmark [SIDE [DELTA]]
+ *  for a SIDE x SIDE grid (default 700) and bucket width DELTA (default
+ *  50, half the largest weight).  Each time is the best of several runs,
+ *  and each run's weights are checked against Dijkstra's.
+ *
+ *  @author Nicholas Moy.
+ */
+public class DeltaSteppingBenchmark {
+
+    /** Run the benchmark with optional ARGS SIDE and DELTA. */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 700;
+        double delta = args.length > 1 ? Double.parseDouble(args[1]) : 50;
+        Graph G = grid(side);
+        WeightFunction weights = DeltaSteppingBenchmark::weight;
+        int source = 1 + side * (side / 2) + side / 2;
+
+        SimpleShortestPaths dijkstra = new SimpleShortestPaths(G, source) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return weight(u, v);
+            }
+        };
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run += 1) {
+            long start = System.nanoTime();
+            dijkstra.setPaths();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%d vertices, %d edges, delta %.1f%n",
+                          G.vertexSize(), G.edgeSize(), delta);
+        System.out.printf("%-10s %10.1f ms%n", "dijkstra", best / 1e6);
+
+        DeltaStepping search = new DeltaStepping(G, weights, delta);
+        double base = 0;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(2 * threads, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            search.setPool(pool);
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run += 1) {
+                long start = System.nanoTime();
+                search.setPaths(source);
+                best = Math.min(best, System.nanoTime() - start);
+                check(G, dijkstra, search);
+            }
+            pool.shutdown();
+            if (threads == 1) {
+                base = best;
+            }
+            System.out.printf("%-10s %10.1f ms  speedup %.2f%n",
+                              threads + " thr", best / 1e6, base / best);
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+
+    /** Returns an undirected SIDE x SIDE grid, with vertex 1 + SIDE * r + c
+     *  at row r and column c. */
+    static Graph grid(int side) {
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 0; v < side * side; v += 1) {
+            builder.addVertex();
+        }
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                int v = 1 + side * r + c;
+                if (c + 1 < side) {
+                    builder.addEdge(v, v + 1);
+                }
+                if (r + 1 < side) {
+                    builder.addEdge(v, v + side);
+                }
+            }
+        }
+        return builder.undirected().freeze();
+    }
+
+    /** Returns a pseudo-random weight from 1 to 100 for the edge between U
+     *  and V, the same in both directions. */
+    static double weight(int u, int v) {
+        long key = (long) Math.min(u, v) << 32 | Math.max(u, v);
+        key *= 0x9E3779B97F4A7C15L;
+        return 1 + (int) ((key >>> 40) % 100);
+    }
+
+    /** Check that SEARCH found the same weights in G as EXPECTED. */
+    private static void check(Graph G, ShortestPaths expected,
+                              DeltaStepping search) {
+        for (IntIteration verts = G.verticesInt(); verts.hasNext(); ) {
+            int v = verts.nextInt();
+            if (expected.getWeight(v) != search.getWeight(v)) {
+                throw new AssertionError("weights differ at vertex " + v);
+            }
+        }
+    }
+
+    /** Number of timed runs of each search. */
+    private static final int RUNS = 3;
+}
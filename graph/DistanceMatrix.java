@@ -0,0 +1,231 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Computes tables of shortest-path distances from each of a set of source
+ *  vertices to each of a set of target vertices.  Each source gets one
+ *  Dijkstra search, which stops as soon as every target is settled; the
+ *  searches run in parallel on a ForkJoinPool (by default the common pool).
+ *  For example,
+ *      DistanceMatrix dm = new DistanceMatrix(G, weights);
+ *      double[][] d = dm.compute(depots, customers);
+ *  makes d[i][j] the length of a shortest path from depots[i] to
+ *  customers[j] (positive infinity if there is none).
+ *
+ *  The graph and weights must not change during compute, and the weight
+ *  function must be safe to call from several threads at once.
+ *
+ *  @author Nicholas Moy.
+ */
+public class DistanceMatrix {
+
+    /** A calculator for distances in G, whose edge weights are given by
+     *  WEIGHTS. */
+    public DistanceMatrix(Graph G, WeightFunction weights) {
+        _G = G;
+        _weights = weights;
+        _pool = ForkJoinPool.commonPool();
+    }
+
+    /** Run searches on POOL. */
+    public void setPool(ForkJoinPool pool) {
+        _pool = pool;
+    }
+
+    /** If KEEP, compute records the tree of shortest paths found from each
+     *  source, for retrieval with predecessors.  Initially false. */
+    public void setKeepTrees(boolean keep) {
+        _keepTrees = keep;
+    }
+
+    /** Returns a table whose [i][j] entry is the length of a shortest path
+     *  from SOURCES[i] to TARGETS[j], or positive infinity if there is
+     *  none. */
+    public double[][] compute(int[] sources, int[] targets) {
+        int n = _G.maxVertex() + 1;
+        boolean[] isTarget = new boolean[n];
+        int distinct;
+        distinct = 0;
+        for (int t : targets) {
+            if (_G.contains(t) && !isTarget[t]) {
+                isTarget[t] = true;
+                distinct += 1;
+            }
+        }
+        double[][] result = new double[sources.length][targets.length];
+        int[][] trees = _keepTrees ? new int[sources.length][] : null;
+        _pool.invoke(new Rows(sources, targets, isTarget, distinct, result,
+                              trees, 0, sources.length));
+        _trees = trees;
+        return result;
+    }
+
+    /** Returns the predecessors in the tree of shortest paths from source
+     *  number I of the last compute, indexed by vertex (0 for the source
+     *  and for vertices not reached), or null if trees were not kept.  The
+     *  tree is complete only up to the last target settled, so it gives
+     *  shortest paths to all the targets. */
+    public int[] predecessors(int i) {
+        return _trees == null ? null : _trees[i];
+    }
+
+    /** The graph. */
+    private final Graph _G;
+    /** Its edge weights. */
+    private final WeightFunction _weights;
+    /** Pool on which searches run. */
+    private ForkJoinPool _pool;
+    /** True iff compute keeps shortest-path trees. */
+    private boolean _keepTrees;
+    /** Trees kept by the last compute, or null. */
+    private int[][] _trees;
+    /** Per-thread search state, allocated on first use and reused by later
+     *  searches on the same thread. */
+    private final ThreadLocal<Search> _searches =
+        ThreadLocal.withInitial(Search::new);
+
+    /** The task of computing a range of rows of a table. */
+    private class Rows extends RecursiveAction {
+
+        /** A task filling RESULT[LO .. HI-1] (and TREES[LO .. HI-1], if
+         *  TREES is non-null) with distances from SOURCES[LO .. HI-1] to
+         *  TARGETS.  ISTARGET marks the DISTINCT vertices in TARGETS. */
+        Rows(int[] sources, int[] targets, boolean[] isTarget, int distinct,
+             double[][] result, int[][] trees, int lo, int hi) {
+            _sources = sources;
+            _targets = targets;
+            _isTarget = isTarget;
+            _distinct = distinct;
+            _result = result;
+            _rowTrees = trees;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > 1) {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(new Rows(_sources, _targets, _isTarget, _distinct,
+                                   _result, _rowTrees, _lo, mid),
+                          new Rows(_sources, _targets, _isTarget, _distinct,
+                                   _result, _rowTrees, mid, _hi));
+            } else if (_hi > _lo) {
+                Search search = _searches.get();
+                if (!search.fits()) {
+                    search = new Search();
+                    _searches.set(search);
+                }
+                search.run(_sources[_lo], _isTarget, _distinct);
+                for (int j = 0; j < _targets.length; j += 1) {
+                    _result[_lo][j] = search.distance(_targets[j]);
+                }
+                if (_rowTrees != null) {
+                    _rowTrees[_lo] = search.tree();
+                }
+            }
+        }
+
+        /** Source vertices. */
+        private final int[] _sources;
+        /** Target vertices. */
+        private final int[] _targets;
+        /** Marks the targets, indexed by vertex. */
+        private final boolean[] _isTarget;
+        /** Number of distinct targets in the graph. */
+        private final int _distinct;
+        /** The table being filled. */
+        private final double[][] _result;
+        /** Trees being kept, or null. */
+        private final int[][] _rowTrees;
+        /** The range of rows to fill. */
+        private final int _lo, _hi;
+    }
+
+    /** The state of one Dijkstra search, reset in time proportional to the
+     *  number of vertices it reached. */
+    private class Search {
+
+        /** A search workspace for the current graph. */
+        Search() {
+            int n = _G.maxVertex() + 1;
+            _dist = new double[n];
+            Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+            _pred = new int[n];
+            _touched = new int[n];
+            _heap = new IndexedHeap(n);
+        }
+
+        /** Returns true iff I am large enough for the current graph. */
+        boolean fits() {
+            return _dist.length == _G.maxVertex() + 1;
+        }
+
+        /** Search from S until all DISTINCT vertices marked in ISTARGET are
+         *  settled. */
+        void run(int s, boolean[] isTarget, int distinct) {
+            for (int i = 0; i < _touchedSize; i += 1) {
+                _dist[_touched[i]] = Double.POSITIVE_INFINITY;
+                _pred[_touched[i]] = 0;
+            }
+            _touchedSize = 0;
+            _heap.clear();
+            if (!_G.contains(s)) {
+                return;
+            }
+            _dist[s] = 0;
+            _touched[0] = s;
+            _touchedSize = 1;
+            _heap.insert(s, 0);
+            int remaining = distinct;
+            while (remaining > 0 && !_heap.isEmpty()) {
+                int v = _heap.poll();
+                if (isTarget[v]) {
+                    remaining -= 1;
+                }
+                double d = _dist[v];
+                _G.forEachSuccessor(v, w -> relax(v, w, d));
+            }
+        }
+
+        /** Relax the edge (V, W), where V is at distance D. */
+        private void relax(int v, int w, double d) {
+            double total = d + _weights.weight(v, w);
+            if (total < _dist[w]) {
+                if (_dist[w] == Double.POSITIVE_INFINITY) {
+                    _touched[_touchedSize] = w;
+                    _touchedSize += 1;
+                }
+                _dist[w] = total;
+                _pred[w] = v;
+                _heap.insertOrDecrease(w, total);
+            }
+        }
+
+        /** Returns the distance found to V by the last run. */
+        double distance(int v) {
+            return _G.contains(v) ? _dist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        /** Returns a copy of the predecessors found by the last run. */
+        int[] tree() {
+            return _pred.clone();
+        }
+
+        /** Distances, indexed by vertex. */
+        private final double[] _dist;
+        /** Predecessors, indexed by vertex. */
+        private final int[] _pred;
+        /** Vertices whose _dist is set, _touched[0 .. _touchedSize-1]. */
+        private final int[] _touched;
+        /** Number of touched vertices. */
+        private int _touchedSize;
+        /** The fringe. */
+        private final IndexedHeap _heap;
+    }
+
+}
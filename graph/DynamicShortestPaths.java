@@ -0,0 +1,237 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+
+/** A tree of shortest paths from one source that is kept up to date as
+ *  edges are added, removed, or change weight, in the manner of
+ *  Ramalingam and Reps.  After changing the graph or the weights, the
+ *  client reports each changed edge with edgeChanged and then calls
+ *  repair, which fixes the tree in two passes:
+ *  <ol>
+ *  <li> Every vertex below a tree edge that was removed or became longer
+ *       loses its distance; those vertices are given the best distances
+ *       available from outside that region, and a Dijkstra search confined
+ *       to the region settles them.
+ *  <li> Every changed edge that now gives a shorter path starts a
+ *       Dijkstra search that spreads only as far as distances improve.
+ *  </ol>
+ *  So the cost of a repair depends on the number of vertices whose
+ *  distances or predecessors change (and their edges), not on the size of
+ *  the graph.  Removing a vertex is reported as the removal of its edges;
+ *  its number should not be reused before the next repair.
+ *
+ *  @author Nicholas Moy.
+ */
+public class DynamicShortestPaths {
+
+    /** The shortest paths in G from SOURCE, where WEIGHTS gives the
+     *  current edge weights. */
+    public DynamicShortestPaths(Graph G, WeightFunction weights, int source) {
+        _G = G;
+        _weights = weights;
+        _source = source;
+        int n = G.maxVertex() + 1;
+        _dist = new double[n];
+        Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+        _preds = new int[n];
+        _region = new int[n];
+        _heap = new IndexedHeap(n);
+        if (G.contains(source)) {
+            _dist[source] = 0;
+            _heap.insert(source, 0);
+            propagate();
+        }
+    }
+
+    /** Returns the starting vertex. */
+    public int getSource() {
+        return _source;
+    }
+
+    /** Returns the length of a shortest path from the source to V, or
+     *  positive infinity if there is none. */
+    public double getWeight(int v) {
+        if (!_G.contains(v) || v >= _dist.length) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return _dist[v];
+    }
+
+    /** Returns the predecessor of V in the tree of shortest paths, or 0 if
+     *  V is the source, is not reached, or is not in the graph. */
+    public int getPredecessor(int v) {
+        if (!_G.contains(v) || v >= _preds.length) {
+            return 0;
+        }
+        return _preds[v];
+    }
+
+    /** Returns a list of vertices starting at the source and ending at V
+     *  that represents a shortest path to V, which must be reached. */
+    public List<Integer> pathTo(int v) {
+        Stack<Integer> stack = new Stack<>();
+        while (v != _source) {
+            stack.push(v);
+            v = getPredecessor(v);
+        }
+        List<Integer> path = new ArrayList<>();
+        path.add(_source);
+        while (!stack.isEmpty()) {
+            path.add(stack.pop());
+        }
+        return path;
+    }
+
+    /** Record that the edge (U, V) has been added or removed or has
+     *  changed weight since the last repair (or construction).  In an
+     *  undirected graph, this covers both directions. */
+    public void edgeChanged(int u, int v) {
+        _changed.add(new int[] { u, v });
+        if (!_G.isDirected() && u != v) {
+            _changed.add(new int[] { v, u });
+        }
+    }
+
+    /** Bring the shortest paths up to date with the changes recorded by
+     *  edgeChanged, and forget those changes.  Returns the number of
+     *  vertices whose distances were recomputed. */
+    public int repair() {
+        grow();
+        _work = 0;
+        _gen += 1;
+        List<Integer> roots = new ArrayList<>();
+        for (int[] e : _changed) {
+            int u = e[0], v = e[1];
+            if (!_G.contains(u)) {
+                addRoot(u, roots);
+            }
+            if (!_G.contains(v)
+                || _preds[v] == u && u != 0
+                   && edgeWeight(u, v) + _dist[u] > _dist[v]) {
+                addRoot(v, roots);
+            }
+        }
+        if (!roots.isEmpty()) {
+            rebuild(roots);
+        }
+        for (int[] e : _changed) {
+            int u = e[0], v = e[1];
+            if (u < _dist.length && v < _dist.length && _G.contains(u)) {
+                lower(u, v, _dist[u] + edgeWeight(u, v));
+            }
+        }
+        propagate();
+        _changed.clear();
+        return _work;
+    }
+
+    /** Add V to ROOTS, unless it is already in the region being rebuilt
+     *  or lies outside the per-vertex arrays. */
+    private void addRoot(int v, List<Integer> roots) {
+        if (v > 0 && v < _dist.length && _region[v] != _gen) {
+            _region[v] = _gen;
+            roots.add(v);
+        }
+    }
+
+    /** Recompute the distances of ROOTS, which have lost their tree edges,
+     *  and of all the vertices below them in the tree. */
+    private void rebuild(List<Integer> roots) {
+        List<Integer> region = new ArrayList<>(roots);
+        for (int k = 0; k < region.size(); k += 1) {
+            int x = region.get(k);
+            _G.forEachSuccessor(x, y -> {
+                if (_preds[y] == x && _region[y] != _gen && y != _source) {
+                    _region[y] = _gen;
+                    region.add(y);
+                }
+            });
+        }
+        for (int x : region) {
+            _dist[x] = Double.POSITIVE_INFINITY;
+            _preds[x] = 0;
+        }
+        for (int x : region) {
+            if (!_G.contains(x)) {
+                continue;
+            }
+            _G.forEachPredecessor(x, p -> {
+                if (_region[p] != _gen) {
+                    lower(p, x, _dist[p] + _weights.weight(p, x));
+                }
+            });
+        }
+        propagate();
+    }
+
+    /** Settle the vertices in the fringe in order of distance, relaxing
+     *  the edges out of each, until the fringe is empty. */
+    private void propagate() {
+        while (!_heap.isEmpty()) {
+            int x = _heap.poll();
+            _work += 1;
+            double d = _dist[x];
+            _G.forEachSuccessor(x, y ->
+                                lower(x, y, d + _weights.weight(x, y)));
+        }
+    }
+
+    /** Make U the predecessor of V, at distance D, if that is shorter
+     *  than V's current distance. */
+    private void lower(int u, int v, double d) {
+        if (d < _dist[v]) {
+            _dist[v] = d;
+            _preds[v] = u;
+            _heap.insertOrDecrease(v, d);
+        }
+    }
+
+    /** Returns the weight of the edge (U, V), or positive infinity if it
+     *  is not in the graph (as after a removal). */
+    private double edgeWeight(int u, int v) {
+        if (!_G.contains(u, v)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return _weights.weight(u, v);
+    }
+
+    /** Enlarge the per-vertex arrays if vertices have been added beyond
+     *  their ends. */
+    private void grow() {
+        int n = _G.maxVertex() + 1;
+        if (n > _dist.length) {
+            int old = _dist.length;
+            _dist = Arrays.copyOf(_dist, n);
+            Arrays.fill(_dist, old, n, Double.POSITIVE_INFINITY);
+            _preds = Arrays.copyOf(_preds, n);
+            _region = Arrays.copyOf(_region, n);
+            _heap = new IndexedHeap(n);
+        }
+    }
+
+    /** The graph. */
+    private final Graph _G;
+    /** Its edge weights. */
+    private final WeightFunction _weights;
+    /** The starting vertex. */
+    private final int _source;
+    /** Distances, indexed by vertex. */
+    private double[] _dist;
+    /** Predecessors, indexed by vertex. */
+    private int[] _preds;
+    /** _region[v] == _gen iff v's distance is being rebuilt. */
+    private int[] _region;
+    /** Generation of the current repair. */
+    private int _gen;
+    /** Fringe of the searches. */
+    private IndexedHeap _heap;
+    /** Edges changed since the last repair. */
+    private final List<int[]> _changed = new ArrayList<>();
+    /** Number of vertices settled by the current repair. */
+    private int _work;
+}
@@ -0,0 +1,160 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A mapping from edges (u, v) to small positive edge ids.  Ids are
+ *  allocated densely and ids of removed edges are reused, so that the
+ *  largest id never exceeds the largest number of edges present at one
+ *  time.  Lookup is through an open-addressing (linear probing) hash table
+ *  on the pair (u, v) packed into a long.
+ *
+ *  @author Nicholas Moy.
+ */
+class EdgeIndex {
+
+    /** An empty index. */
+    EdgeIndex() {
+        _keys = new long[INITIAL_CAPACITY];
+        _ids = new int[INITIAL_CAPACITY];
+        _shift = Long.SIZE - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+        _freeIds = new int[INITIAL_CAPACITY];
+    }
+
+    /** Returns the key for the edge (U, V). */
+    static long key(int u, int v) {
+        return ((long) u << Integer.SIZE) | (v & 0xffffffffL);
+    }
+
+    /** Returns the number of edges in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Make room for N edges without further rehashing. */
+    void reserve(int n) {
+        int capacity = _ids.length;
+        while (capacity < 2 * n) {
+            capacity *= 2;
+        }
+        if (capacity != _ids.length) {
+            resize(capacity);
+        }
+    }
+
+    /** Returns the id of the edge with key K, or 0 if it is absent. */
+    int get(long k) {
+        int i = slot(k);
+        while (_ids[i] != 0) {
+            if (_keys[i] == k) {
+                return _ids[i];
+            }
+            i = (i + 1) & (_ids.length - 1);
+        }
+        return 0;
+    }
+
+    /** Returns the id of the edge with key K, first allocating one if
+     *  K is absent. */
+    int put(long k) {
+        int i = slot(k);
+        while (_ids[i] != 0) {
+            if (_keys[i] == k) {
+                return _ids[i];
+            }
+            i = (i + 1) & (_ids.length - 1);
+        }
+        int id;
+        if (_freeSize > 0) {
+            _freeSize -= 1;
+            id = _freeIds[_freeSize];
+        } else {
+            _maxId += 1;
+            id = _maxId;
+        }
+        _keys[i] = k;
+        _ids[i] = id;
+        _size += 1;
+        if (2 * _size > _ids.length) {
+            resize(2 * _ids.length);
+        }
+        return id;
+    }
+
+    /** Remove the edge with key K, if present, releasing its id for reuse.
+     *  Returns that id, or 0 if K was absent. */
+    int remove(long k) {
+        int mask = _ids.length - 1;
+        int i = slot(k);
+        while (_ids[i] != 0 && _keys[i] != k) {
+            i = (i + 1) & mask;
+        }
+        int id = _ids[i];
+        if (id == 0) {
+            return 0;
+        }
+        _size -= 1;
+        if (_freeSize == _freeIds.length) {
+            _freeIds = Arrays.copyOf(_freeIds, 2 * _freeIds.length);
+        }
+        _freeIds[_freeSize] = id;
+        _freeSize += 1;
+
+        int hole = i;
+        for (int j = (i + 1) & mask; _ids[j] != 0; j = (j + 1) & mask) {
+            int home = slot(_keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                _keys[hole] = _keys[j];
+                _ids[hole] = _ids[j];
+                hole = j;
+            }
+        }
+        _ids[hole] = 0;
+        return id;
+    }
+
+    /** Returns the home slot of key K. */
+    private int slot(long k) {
+        return (int) ((k * HASH_MULTIPLIER) >>> _shift);
+    }
+
+    /** Rehash into tables of size CAPACITY, a power of 2. */
+    private void resize(int capacity) {
+        long[] keys = _keys;
+        int[] ids = _ids;
+        _keys = new long[capacity];
+        _ids = new int[capacity];
+        _shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        for (int j = 0; j < ids.length; j += 1) {
+            if (ids[j] != 0) {
+                int i = slot(keys[j]);
+                while (_ids[i] != 0) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                _keys[i] = keys[j];
+                _ids[i] = ids[j];
+            }
+        }
+    }
+
+    /** Initial table size (a power of 2). */
+    private static final int INITIAL_CAPACITY = 16;
+    /** Multiplier for Fibonacci hashing of keys. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Keys of occupied slots. */
+    private long[] _keys;
+    /** Ids of occupied slots; 0 marks an empty slot. */
+    private int[] _ids;
+    /** Shift that reduces a hashed key to a slot number. */
+    private int _shift;
+    /** Number of edges. */
+    private int _size;
+    /** Largest id ever allocated. */
+    private int _maxId;
+    /** Stack of released ids, _freeIds[0 .. _freeSize-1]. */
+    private int[] _freeIds;
+    /** Number of released ids. */
+    private int _freeSize;
+}
@@ -0,0 +1,438 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/** An immutable snapshot of a Graph in compressed-sparse-row form.  The
+ *  successors of vertex v are _outTargets[_outStart[v] ..
+ *  _outStart[v + 1] - 1], kept in increasing order, and likewise for
+ *  predecessors.  Edge ids are those of the graph that was frozen, so that
+ *  labels keyed on them (as in LabeledGraph) remain valid.
+ *
+ *  @author Nicholas Moy.
+ */
+final class FrozenGraph extends Graph {
+
+    /** Returns a frozen copy of G. */
+    static FrozenGraph of(Graph G) {
+        int maxV = G.maxVertex();
+        BitSet present = new BitSet(maxV + 1);
+        for (int v : G.vertices()) {
+            present.set(v);
+        }
+
+        int n = G.edgeSize();
+        int[] src = new int[n], dst = new int[n], ids = new int[n];
+        int k;
+        k = 0;
+        for (int[] e : G.edges()) {
+            src[k] = e[0];
+            dst[k] = e[1];
+            ids[k] = G.edgeId(e[0], e[1]);
+            k += 1;
+        }
+        return new FrozenGraph(G.isDirected(), maxV, present, src, dst, ids,
+                               k);
+    }
+
+    /** A graph with vertices PRESENT, none larger than MAXV, and the N edges
+     *  (SRC[i], DST[i]) with ids IDS[i].  For an undirected graph, each
+     *  edge appears once, in either orientation. */
+    FrozenGraph(boolean directed, int maxV, BitSet present,
+                int[] src, int[] dst, int[] ids, int n) {
+        _directed = directed;
+        _maxVertex = maxV;
+        _present = present;
+        _vertexSize = present.cardinality();
+        _edgeSize = n;
+
+        if (directed) {
+            _outStart = new int[maxV + 2];
+            _outTargets = new int[n];
+            _outIds = new int[n];
+            sortedRows(src, dst, ids, n, _outStart, _outTargets, _outIds);
+            _inStart = new int[maxV + 2];
+            _inSources = new int[n];
+            sortedRows(dst, src, null, n, _inStart, _inSources, null);
+        } else {
+            int loops;
+            loops = 0;
+            for (int i = 0; i < n; i += 1) {
+                if (src[i] == dst[i]) {
+                    loops += 1;
+                }
+            }
+            int m = 2 * n - loops;
+            int[] s = new int[m], d = new int[m], id = new int[m];
+            int j;
+            j = 0;
+            for (int i = 0; i < n; i += 1) {
+                s[j] = src[i];
+                d[j] = dst[i];
+                id[j] = ids[i];
+                j += 1;
+                if (src[i] != dst[i]) {
+                    s[j] = dst[i];
+                    d[j] = src[i];
+                    id[j] = ids[i];
+                    j += 1;
+                }
+            }
+            _outStart = new int[maxV + 2];
+            _outTargets = new int[m];
+            _outIds = new int[m];
+            sortedRows(s, d, id, m, _outStart, _outTargets, _outIds);
+            _inStart = _outStart;
+            _inSources = _outTargets;
+        }
+    }
+
+    /** Fill START, TARGETS, and (if non-null) IDS with the rows of the N
+     *  edges (FROM[i], TO[i]) with ids EDGEIDS[i], in compressed-sparse-row
+     *  form with each row in increasing order of target.  START must have
+     *  length one more than the largest vertex + 1.  Uses two stable counting
+     *  passes (first by target, then by source), so takes O(V + E) time. */
+    static void sortedRows(int[] from, int[] to, int[] edgeIds, int n,
+                           int[] start, int[] targets, int[] ids) {
+        int rows = start.length - 1;
+        int[] count = new int[rows + 1];
+        for (int i = 0; i < n; i += 1) {
+            count[to[i] + 1] += 1;
+        }
+        for (int v = 0; v < rows; v += 1) {
+            count[v + 1] += count[v];
+        }
+        int[] byTarget = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            byTarget[count[to[i]]++] = i;
+        }
+
+        for (int i = 0; i < n; i += 1) {
+            start[from[i] + 1] += 1;
+        }
+        for (int v = 0; v < rows; v += 1) {
+            start[v + 1] += start[v];
+        }
+        int[] next = new int[rows];
+        System.arraycopy(start, 0, next, 0, rows);
+        for (int i : byTarget) {
+            int p = next[from[i]]++;
+            targets[p] = to[i];
+            if (ids != null) {
+                ids[p] = edgeIds[i];
+            }
+        }
+    }
+
+    /** Write my structure to OUT, in the layout that MappedGraph reads:
+     *  my largest vertex, vertex count, edge count, and number of
+     *  successor entries, followed by my vertex set as a bit vector of
+     *  ints, _outStart, _outTargets, _outIds, and (if I am directed)
+     *  _inStart and _inSources. */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(_maxVertex);
+        out.writeInt(_vertexSize);
+        out.writeInt(_edgeSize);
+        out.writeInt(_outTargets.length);
+        int[] words = new int[(_maxVertex >> WORD_SHIFT) + 1];
+        for (int v = _present.nextSetBit(0); v >= 0;
+             v = _present.nextSetBit(v + 1)) {
+            words[v >> WORD_SHIFT] |= 1 << v;
+        }
+        writeInts(words, out);
+        writeInts(_outStart, out);
+        writeInts(_outTargets, out);
+        writeInts(_outIds, out);
+        if (_directed) {
+            writeInts(_inStart, out);
+            writeInts(_inSources, out);
+        }
+    }
+
+    /** Write the elements of A to OUT. */
+    private static void writeInts(int[] a, DataOutput out)
+        throws IOException {
+        for (int x : a) {
+            out.writeInt(x);
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return _outStart[v + 1] - _outStart[v];
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return _inStart[v + 1] - _inStart[v];
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex && _present.get(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return find(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw frozen();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public Graph freeze() {
+        return this;
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return Iteration.iteration(verticesInt());
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return Iteration.iteration(successorsInt(v));
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return Iteration.iteration(predecessorsInt(v));
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return new VerticesIteration();
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.iteration(_outTargets, 0, 0);
+        }
+        return IntIteration.iteration(_outTargets, _outStart[v],
+                                      _outStart[v + 1]);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.iteration(_inSources, 0, 0);
+        }
+        return IntIteration.iteration(_inSources, _inStart[v],
+                                      _inStart[v + 1]);
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            for (int i = _outStart[v], n = _outStart[v + 1]; i < n; i += 1) {
+                action.accept(_outTargets[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            for (int i = _inStart[v], n = _inStart[v + 1]; i < n; i += 1) {
+                action.accept(_inSources[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachEdge(IntBinaryConsumer action) {
+        for (int u = 1; u <= _maxVertex; u += 1) {
+            for (int i = _outStart[u], n = _outStart[u + 1]; i < n; i += 1) {
+                if (_directed || _outTargets[i] >= u) {
+                    action.accept(u, _outTargets[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new EdgesIteration();
+    }
+
+    @Override
+    protected int modCount() {
+        return 0;
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        int p = find(u, v);
+        return p < 0 ? 0 : _outIds[p];
+    }
+
+    /** Returns the index of V in the successor row of U, or -1 if (U, V) is
+     *  not one of my edges. */
+    private int find(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return -1;
+        }
+        int lo = _outStart[u], hi = _outStart[u + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int t = _outTargets[mid];
+            if (t < v) {
+                lo = mid + 1;
+            } else if (t > v) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the exception thrown by attempts to modify me. */
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("graph is frozen");
+    }
+
+    /** Log2 of the number of vertices per int of a vertex bit vector. */
+    static final int WORD_SHIFT = 5;
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** My largest vertex number. */
+    private final int _maxVertex;
+    /** Number of vertices. */
+    private final int _vertexSize;
+    /** Number of edges. */
+    private final int _edgeSize;
+    /** The set of my vertex numbers. */
+    private final BitSet _present;
+    /** Row offsets into _outTargets, indexed by vertex. */
+    private final int[] _outStart;
+    /** Successor rows. */
+    private final int[] _outTargets;
+    /** Edge ids parallel to _outTargets. */
+    private final int[] _outIds;
+    /** Row offsets into _inSources, indexed by vertex. */
+    private final int[] _inStart;
+    /** Predecessor rows. */
+    private final int[] _inSources;
+
+    /** Iteration over my vertices in increasing order. */
+    private class VerticesIteration extends IntIteration {
+
+        /** Constructor. */
+        VerticesIteration() {
+            _next = _present.nextSetBit(1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            int v = _next;
+            _next = _present.nextSetBit(v + 1);
+            return v;
+        }
+
+        /** Next vertex to return, or -1 if none. */
+        private int _next;
+    }
+
+    /** Iteration over my edges.  For undirected graphs, each edge is
+     *  returned once, as (u, v) with u <= v. */
+    private class EdgesIteration extends Iteration<int[]> {
+
+        /** Constructor. */
+        EdgesIteration() {
+            _u = 0;
+            _index = 0;
+            toNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _outTargets.length;
+        }
+
+        @Override
+        public int[] next() {
+            _edge[0] = _u;
+            _edge[1] = _outTargets[_index];
+            _index += 1;
+            toNext();
+            return _edge;
+        }
+
+        /** Advance _index (and _u) to the next edge to be returned. */
+        private void toNext() {
+            while (_index < _outTargets.length) {
+                while (_index >= _outStart[_u + 1]) {
+                    _u += 1;
+                }
+                if (_directed || _outTargets[_index] >= _u) {
+                    return;
+                }
+                _index += 1;
+            }
+        }
+
+        /** Source of the current row. */
+        private int _u;
+        /** Current index in _outTargets. */
+        private int _index;
+        /** Array used to return all results. */
+        private final int[] _edge = new int[2];
+    }
+
+}
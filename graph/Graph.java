@@ -1,5 +1,7 @@
 package graph;
 
+import java.util.function.IntConsumer;
+
 /* Do not add or remove public or protected members, or modify the signatures of
  * any public methods.  Do not add or remove public classes.
  *
@@ -91,6 +93,48 @@ public abstract class Graph {
         return successors(v);
     }
 
+    /** Returns an iteration over all vertices in numerical order.  The same
+     *  as vertices(), but without boxing. */
+    public IntIteration verticesInt() {
+        return IntIteration.iteration(vertices());
+    }
+
+    /** Returns an iteration over all successors of V.  The same as
+     *  successors(V), but without boxing. */
+    public IntIteration successorsInt(int v) {
+        return IntIteration.iteration(successors(v));
+    }
+
+    /** Returns an iteration over all predecessors of V.  The same as
+     *  predecessors(V), but without boxing. */
+    public IntIteration predecessorsInt(int v) {
+        return IntIteration.iteration(predecessors(v));
+    }
+
+    /** Apply ACTION to each successor of V, in the order of successors(V).
+     *  Does nothing if V is not my vertex. */
+    public void forEachSuccessor(int v, IntConsumer action) {
+        for (IntIteration succ = successorsInt(v); succ.hasNext(); ) {
+            action.accept(succ.nextInt());
+        }
+    }
+
+    /** Apply ACTION to each predecessor of V, in the order of
+     *  predecessors(V).  Does nothing if V is not my vertex. */
+    public void forEachPredecessor(int v, IntConsumer action) {
+        for (IntIteration pred = predecessorsInt(v); pred.hasNext(); ) {
+            action.accept(pred.nextInt());
+        }
+    }
+
+    /** Apply ACTION to the end points (u, v) of each of my edges, as
+     *  returned by edges(). */
+    public void forEachEdge(IntBinaryConsumer action) {
+        for (int[] e : edges()) {
+            action.accept(e[0], e[1]);
+        }
+    }
+
     /** Returns an iteration over all edges in me.  Edges are returned
      *  as two-element arrays (u, v), which are directed if the graph
      *  is.  The values in the array returned by .next() may have changed
@@ -98,8 +142,26 @@ public abstract class Graph {
      *  array to return all results). */
     public abstract Iteration<int[]> edges();
 
+    /** Returns an immutable snapshot of me in compressed-sparse-row form,
+     *  with the same vertices, edges, and edge ids.  Its successors and
+     *  predecessors are returned in increasing order, its degrees take
+     *  constant time, and contains(u, v) takes time logarithmic in the
+     *  degree of u.  Attempts to modify the result throw
+     *  UnsupportedOperationException. */
+    public Graph freeze() {
+        return FrozenGraph.of(this);
+    }
+
     /* Non-public methods for internal use. */
 
+    /** Returns a count that changes whenever my vertices or edges do, or -1
+     *  if I keep none, so that what is computed from me may be reused
+     *  while it stays the same.  A subclass that keeps no count must
+     *  return -1, as this default does. */
+    protected int modCount() {
+        return -1;
+    }
+
     /** Throw exception if V is not one of my vertices. */
     protected void checkMyVertex(int v) {
         if (!contains(v)) {
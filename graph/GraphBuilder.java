@@ -0,0 +1,140 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Builds a DirectedGraph or UndirectedGraph in one step from a vertex
+ *  count and arrays of edge end points, without the per-edge membership
+ *  checks of repeated calls to Graph.add(u, v).  Duplicate edges are
+ *  removed by sorting (in parallel) rather than by lookup, so that
+ *  building takes O(V + E log E) time.  For example,
+ *      GraphBuilder b = new GraphBuilder(3, new int[] { 1, 2, 1 },
+ *                                        new int[] { 2, 3, 2 });
+ *      DirectedGraph G = b.directed();
+ *  gives vertices 1, 2, 3 and edges (1, 2) and (2, 3).  Edges may also be
+ *  supplied one at a time with addVertex and addEdge.
+ *
+ *  @author Nicholas Moy.
+ */
+public class GraphBuilder {
+
+    /** A builder with no vertices or edges. */
+    public GraphBuilder() {
+        this(0, new int[INITIAL_EDGES], new int[INITIAL_EDGES], 0);
+    }
+
+    /** A builder for a graph with vertices 1 .. VERTICES and edges
+     *  (SRC[i], DST[i]).  SRC and DST must have the same length, and are
+     *  used (not copied) by this builder. */
+    public GraphBuilder(int vertices, int[] src, int[] dst) {
+        this(vertices, src, dst, src.length);
+        if (src.length != dst.length) {
+            throw new IllegalArgumentException("edge arrays differ in length");
+        }
+    }
+
+    /** A builder with vertices 1 .. VERTICES and the N edges
+     *  (SRC[i], DST[i]). */
+    private GraphBuilder(int vertices, int[] src, int[] dst, int n) {
+        _vertices = vertices;
+        _src = src;
+        _dst = dst;
+        _edges = n;
+    }
+
+    /** Add a vertex and return its number, which is one more than the
+     *  number of vertices so far. */
+    public int addVertex() {
+        _vertices += 1;
+        return _vertices;
+    }
+
+    /** Add edge (U, V) and return its index, which is the number of edges
+     *  (including duplicates) added so far. */
+    public int addEdge(int u, int v) {
+        if (_edges == _src.length) {
+            _src = Arrays.copyOf(_src, 2 * _src.length + 1);
+            _dst = Arrays.copyOf(_dst, 2 * _dst.length + 1);
+        }
+        _src[_edges] = u;
+        _dst[_edges] = v;
+        _edges += 1;
+        return _edges - 1;
+    }
+
+    /** Returns the number of vertices. */
+    public int vertexSize() {
+        return _vertices;
+    }
+
+    /** Returns a new DirectedGraph with my vertices and edges. */
+    public DirectedGraph directed() {
+        DirectedGraph G = new DirectedGraph();
+        load(G);
+        return G;
+    }
+
+    /** Returns a new UndirectedGraph with my vertices and edges. */
+    public UndirectedGraph undirected() {
+        UndirectedGraph G = new UndirectedGraph();
+        load(G);
+        return G;
+    }
+
+    /** Set the labels of G, which must have the vertices and edges built by
+     *  me.  VLABELS.get(i) becomes the label of vertex i + 1, and
+     *  ELABELS.get(i) the label of my ith edge.  Where an edge was given more
+     *  than once, the label of its last occurrence wins, as for repeated
+     *  calls to LabeledGraph.add(u, v, lab).  Either list may be null to
+     *  leave those labels unset. */
+    public <VL, EL> void label(LabeledGraph<VL, EL> G,
+                               List<? extends VL> vlabels,
+                               List<? extends EL> elabels) {
+        if (vlabels != null) {
+            for (int i = 0; i < _vertices; i += 1) {
+                G.setLabel(i + 1, vlabels.get(i));
+            }
+        }
+        if (elabels != null) {
+            for (int i = 0; i < _edges; i += 1) {
+                G.setLabel(_src[i], _dst[i], elabels.get(i));
+            }
+        }
+    }
+
+    /** Add my vertices and edges to G, which must be empty. */
+    private void load(GraphObj G) {
+        long[] keys = new long[_edges];
+        for (int i = 0; i < _edges; i += 1) {
+            int u = _src[i], v = _dst[i];
+            if (u <= 0 || u > _vertices || v <= 0 || v > _vertices) {
+                throw new IllegalArgumentException("vertex not from Graph");
+            }
+            keys[i] = G.key(u, v);
+        }
+        Arrays.parallelSort(keys);
+        int m;
+        m = 0;
+        for (int i = 0; i < keys.length; i += 1) {
+            if (m == 0 || keys[i] != keys[m - 1]) {
+                keys[m] = keys[i];
+                m += 1;
+            }
+        }
+        G.load(_vertices, keys, m);
+    }
+
+    /** Initial capacity of the edge arrays. */
+    private static final int INITIAL_EDGES = 16;
+
+    /** Number of vertices. */
+    private int _vertices;
+    /** Sources of edges. */
+    private int[] _src;
+    /** Destinations of edges. */
+    private int[] _dst;
+    /** Number of edges. */
+    private int _edges;
+}
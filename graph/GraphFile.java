@@ -0,0 +1,209 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** Saves Graphs, and optionally their labels, in a binary file that can
+ *  later be reopened as a read-only Graph by mapping the file into memory.
+ *  Opening takes time independent of the size of the graph, since the
+ *  mapped graph answers queries straight from the file's pages.  For
+ *  example,
+ *      GraphFile.write(G, "roads.graph");
+ *      ...
+ *      Graph H = GraphFile.open("roads.graph");
+ *  gives a graph H with the same vertices, edges, and edge ids as G.
+ *
+ *  A file is a sequence of big-endian ints: MAGIC, VERSION, a set of flags
+ *  (DIRECTED, LABELED), and the structure of the graph as written by
+ *  FrozenGraph.writeTo.  If LABELED, there follow the lengths of three
+ *  tables and the tables themselves: for each vertex number, the offset
+ *  of its label in the label bytes; for each edge id, likewise; and the
+ *  vertices whose labels have keys (see LabelCodec.vertexKey), in order
+ *  of key.  An offset of -1 means no label.  Last come the label bytes,
+ *  each label as written by a LabelCodec.  The labels are left in the
+ *  file when it is opened, and decoded one at a time as they are fetched
+ *  (see SavedLabels).  Since a file is mapped as one buffer, it can be at
+ *  most 2GB long.
+ *
+ *  @author Nicholas Moy.
+ */
+public final class GraphFile {
+
+    /** Not instantiable. */
+    private GraphFile() {
+    }
+
+    /** Write the vertices, edges, and edge ids of G to the file named
+     *  NAME. */
+    public static void write(Graph G, String name) throws IOException {
+        try (DataOutputStream out = create(name)) {
+            writeGraph(G, 0, out);
+        }
+    }
+
+    /** Write the vertices, edges, edge ids, and labels of G to the file
+     *  named NAME, converting labels to bytes with CODEC and indexing the
+     *  vertices by the keys it gives their labels. */
+    public static <VL, EL> void write(LabeledGraph<VL, EL> G, String name,
+                                      LabelCodec<VL, EL> codec)
+        throws IOException {
+        try (DataOutputStream out = create(name)) {
+            FrozenGraph F = writeGraph(G, LABELED, out);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream labels = new DataOutputStream(bytes);
+            int[] vertexTable = new int[F.maxVertex() + 1];
+            Arrays.fill(vertexTable, -1);
+            ArrayList<String> keys = new ArrayList<>();
+            ArrayList<Integer> keyed = new ArrayList<>();
+            for (int v : F.vertices()) {
+                VL lab = G.getLabel(v);
+                if (lab != null) {
+                    vertexTable[v] = labels.size();
+                    codec.writeVertexLabel(lab, labels);
+                    String key = codec.vertexKey(lab);
+                    if (key != null) {
+                        keys.add(key);
+                        keyed.add(v);
+                    }
+                }
+            }
+            int maxId;
+            maxId = 0;
+            for (int[] e : F.edges()) {
+                maxId = Math.max(maxId, F.edgeId(e[0], e[1]));
+            }
+            int[] edgeTable = new int[maxId + 1];
+            Arrays.fill(edgeTable, -1);
+            for (int[] e : F.edges()) {
+                EL lab = G.getLabel(e[0], e[1]);
+                if (lab != null) {
+                    edgeTable[F.edgeId(e[0], e[1])] = labels.size();
+                    codec.writeEdgeLabel(lab, labels);
+                }
+            }
+            Integer[] index = new Integer[keys.size()];
+            for (int i = 0; i < index.length; i += 1) {
+                index[i] = i;
+            }
+            Arrays.sort(index, (i, j) -> keys.get(i).compareTo(keys.get(j)));
+
+            out.writeInt(vertexTable.length);
+            out.writeInt(edgeTable.length);
+            out.writeInt(index.length);
+            for (int off : vertexTable) {
+                out.writeInt(off);
+            }
+            for (int off : edgeTable) {
+                out.writeInt(off);
+            }
+            for (int i : index) {
+                out.writeInt(keyed.get(i));
+            }
+            labels.flush();
+            bytes.writeTo(out);
+        }
+    }
+
+    /** Returns true iff the file named NAME starts like a graph file. */
+    public static boolean isGraphFile(String name) {
+        try (InputStream inp = Files.newInputStream(Paths.get(name))) {
+            return new DataInputStream(inp).readInt() == MAGIC;
+        } catch (IOException excp) {
+            return false;
+        }
+    }
+
+    /** Returns the read-only graph saved in the file named NAME. */
+    public static Graph open(String name) throws IOException {
+        return mapGraph(map(name));
+    }
+
+    /** Returns a new LabeledGraph on the read-only graph saved in the file
+     *  named NAME, with the labels saved there.  The file is mapped once,
+     *  and its labels stay there, each converted from bytes by CODEC only
+     *  when it is fetched, so opening takes time independent of the size
+     *  of the graph. */
+    public static <VL, EL> LabeledGraph<VL, EL> open(String name,
+                                                     LabelCodec<VL, EL> codec)
+        throws IOException {
+        ByteBuffer buf = map(name);
+        MappedGraph G = mapGraph(buf);
+        if ((buf.getInt(Integer.BYTES * FLAGS_AT) & LABELED) == 0) {
+            throw new IOException(name + " has no labels");
+        }
+        return new LabeledGraph<>(G, new SavedLabels<>(buf,
+                                                       Integer.BYTES * G.end(),
+                                                       codec));
+    }
+
+    /** Returns a stream that writes the file named NAME. */
+    private static DataOutputStream create(String name) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(Paths.get(name))));
+    }
+
+    /** Write the header and structure of G to OUT, adding FLAGS to its
+     *  flags, and return the FrozenGraph that was written. */
+    private static FrozenGraph writeGraph(Graph G, int flags,
+                                          DataOutputStream out)
+        throws IOException {
+        FrozenGraph F =
+            G instanceof FrozenGraph ? (FrozenGraph) G : FrozenGraph.of(G);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(flags | (G.isDirected() ? DIRECTED : 0));
+        F.writeTo(out);
+        return F;
+    }
+
+    /** Returns the contents of the file named NAME, mapped read-only. */
+    private static ByteBuffer map(String name) throws IOException {
+        try (FileChannel chan = FileChannel.open(Paths.get(name),
+                                                 StandardOpenOption.READ)) {
+            if (chan.size() > Integer.MAX_VALUE) {
+                throw new IOException(name + " is too large");
+            }
+            return chan.map(FileChannel.MapMode.READ_ONLY, 0, chan.size());
+        }
+    }
+
+    /** Returns the graph whose file contents are BUF. */
+    private static MappedGraph mapGraph(ByteBuffer buf) throws IOException {
+        IntBuffer ints = buf.asIntBuffer();
+        if (ints.limit() < HEADER || ints.get(MAGIC_AT) != MAGIC) {
+            throw new IOException("not a graph file");
+        }
+        if (ints.get(VERSION_AT) != VERSION) {
+            throw new IOException("unsupported graph file version "
+                                  + ints.get(VERSION_AT));
+        }
+        return new MappedGraph(ints, HEADER,
+                               (ints.get(FLAGS_AT) & DIRECTED) != 0);
+    }
+
+    /** First int of every graph file ("GRPH"). */
+    private static final int MAGIC = 0x47525048;
+    /** Current version of the format. */
+    private static final int VERSION = 2;
+    /** Flag bits. */
+    private static final int DIRECTED = 1, LABELED = 2;
+    /** Positions of the magic number, version, and flags. */
+    private static final int MAGIC_AT = 0, VERSION_AT = 1, FLAGS_AT = 2;
+    /** Number of ints preceding the graph structure. */
+    private static final int HEADER = 3;
+
+}
@@ -2,7 +2,10 @@ package graph;
 
 /** A Graph that delegates all its operations to another, preexisting
  *  Graph object.  This is intended to be extended, and selected methods
- *  overridden, as needed.
+ *  overridden, as needed.  Since a subclass may hide or change parts of
+ *  the underlying Graph, modCount returns -1 (no count kept) unless
+ *  overridden; a subclass whose vertices and edges are exactly those of
+ *  the underlying Graph may return getGraph().modCount().
  *  @author P. N. Hilfinger */
 public class GraphFilter extends Graph {
 
@@ -101,6 +104,11 @@ public class GraphFilter extends Graph {
         _G.checkMyVertex(v);
     }
 
+    /** Returns my underlying graph. */
+    protected Graph getGraph() {
+        return _G;
+    }
+
     /** My underlying graph. */
     private final Graph _G;
 }
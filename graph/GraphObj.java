@@ -2,12 +2,29 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
 
 /** A partial implementation of Graph containing elements common to
- *  directed and undirected graphs.
+ *  directed and undirected graphs.  Each vertex v has a list of its
+ *  successors, _out[v][0 .. _outSize[v]-1], and of its predecessors,
+ *  _in[v][0 .. _inSize[v]-1], in growable int arrays.  In an undirected
+ *  graph, the two are the same arrays, and each edge (u, v) appears once
+ *  in the list of u and once in the list of v (just once if u == v).
+ *  Lists are unordered; removal swaps the last entry into the hole.
+ *  The vertex numbers in use are kept in a VertexSet, and edge ids are
+ *  allocated (and membership of edges tested) by an EdgeIndex.
+ *
+ *  Removals may also be deferred: the vertex or edge leaves the VertexSet
+ *  and EdgeIndex at once, leaving behind tombstones---list entries for
+ *  vertices or edges that no longer exist---in the lists of the vertices
+ *  recorded in _touched.  Reads skip the tombstones in those lists (an
+ *  entry w in the list of v is live iff w is a vertex and the edge is in
+ *  the EdgeIndex), so reading never changes the graph and concurrent
+ *  readers are safe.  The lists are compacted in one pass (see compact)
+ *  by the bulk removal methods, before the graph grows, when tombstones
+ *  come to outnumber live edges, and when deferral is turned off.
  *
  *  @author Nicholas Moy.
  */
@@ -15,33 +32,33 @@ abstract class GraphObj extends Graph {
 
     /** A new, empty Graph. */
     GraphObj() {
-        numVertex = 0;
-        verts = new ArrayList<>();
-        edges = new ArrayList<>();
+        _vertices = new VertexSet();
+        _edges = new EdgeIndex();
+        _touched = new BitSet();
+        _out = new int[INITIAL_VERTICES][];
+        _outSize = new int[INITIAL_VERTICES];
+        if (isDirected()) {
+            _in = new int[INITIAL_VERTICES][];
+            _inSize = new int[INITIAL_VERTICES];
+        } else {
+            _in = _out;
+            _inSize = _outSize;
+        }
     }
 
     @Override
     public int vertexSize() {
-        return verts.size();
+        return _vertices.size();
     }
 
     @Override
     public int maxVertex() {
-        PriorityQueue<Integer> orderedVerts =
-                new PriorityQueue<>(10, Collections.reverseOrder());
-        orderedVerts.addAll(verts);
-        if (orderedVerts.isEmpty()) {
-            return 0;
-        }
-        return orderedVerts.poll();
+        return _vertices.max();
     }
 
     @Override
     public int edgeSize() {
-        if (isDirected()) {
-            return edges.size();
-        }
-        return edges.size() / 2;
+        return _edges.size();
     }
 
     @Override
@@ -49,253 +66,592 @@ abstract class GraphObj extends Graph {
 
     @Override
     public int outDegree(int v) {
-        int ans = 0;
-        for (int i = 0; i < edges.size(); i++) {
-            int[] edge = edges.get(i);
-            if (edge[0] == v) {
-                if (edge[0] == edge[1]) {
-                    i++;
-                }
-                ans++;
-            }
+        if (!contains(v)) {
+            return 0;
         }
-        return ans;
+        if (!_touched.get(v)) {
+            return _outSize[v];
+        }
+        int[] count = new int[1];
+        forEachSuccessor(v, w -> count[0] += 1);
+        return count[0];
     }
 
     @Override
-    public abstract int inDegree(int v);
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        if (!_touched.get(v)) {
+            return _inSize[v];
+        }
+        int[] count = new int[1];
+        forEachPredecessor(v, w -> count[0] += 1);
+        return count[0];
+    }
 
     @Override
     public boolean contains(int u) {
-        if (u != 0 && verts.contains(u)) {
-            return true;
-        }
-        return false;
+        return _vertices.contains(u);
     }
 
     @Override
     public boolean contains(int u, int v) {
-        if (contains(u) && contains(v)) {
-            for (int[] edge : edges) {
-                if (edge[0] == u && edge[1] == v) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return edgeId(u, v) != 0;
     }
 
     @Override
     public int add() {
-        numVertex++;
-        for (int i = 1; i <= verts.size(); i++) {
-            if (!verts.contains(i)) {
-                verts.add(i);
-                return i;
-            }
+        _modCount += 1;
+        compactIfStale();
+        int v = _vertices.add();
+        if (v >= _outSize.length) {
+            reserve(Math.max(v + 1, 2 * _outSize.length));
         }
-        verts.add(numVertex);
-        return numVertex;
+        return v;
     }
 
     @Override
     public int add(int u, int v) {
-        int[] e = new int[] {u, v};
-        int[] erev = new int[] {v, u};
-        if (contains(u) && contains(v)) {
-            if (!contains(u, v)) {
-                numEdge++;
-                edges.add(e);
-                if (!isDirected()) {
-                    edges.add(erev);
-                }
-            }
-        }
-        return edgeId(u, v);
-    }
-
-    /** Removes from verts array.
-     * @param v */
-    private void removeFromVerts(int v) {
-        for (int i = 0; i < verts.size(); i++) {
-            if (verts.get(i) == v) {
-                verts.remove(i);
-                return;
+        checkMyVertex(u);
+        checkMyVertex(v);
+        _modCount += 1;
+        compactIfStale();
+        int size = _edges.size();
+        int e = _edges.put(key(u, v));
+        if (_edges.size() != size) {
+            append(_out, _outSize, u, v);
+            if (isDirected() || u != v) {
+                append(_in, _inSize, v, u);
             }
         }
+        return e;
     }
 
     @Override
     public void remove(int v) {
-        if (contains(v)) {
-            numVertex--;
-            removeFromVerts(v);
-            ArrayList<int[]> toRemove = new ArrayList<>();
-            for (int[] edge : edges) {
-                if (edge[0] == v || edge[1] == v) {
-                    toRemove.add(edge);
+        _modCount += 1;
+        if (_lazy) {
+            markRemoved(v);
+            compactIfCrowded();
+        } else if (_vertices.remove(v)) {
+            for (int i = 0; i < _outSize[v]; i += 1) {
+                int w = _out[v][i];
+                _edges.remove(key(v, w));
+                if (w != v) {
+                    delete(_in, _inSize, w, v);
                 }
             }
-            for (int[] edge : toRemove) {
-                edges.remove(edge);
+            if (isDirected()) {
+                for (int i = 0; i < _inSize[v]; i += 1) {
+                    int w = _in[v][i];
+                    if (w != v) {
+                        _edges.remove(key(w, v));
+                        delete(_out, _outSize, w, v);
+                    }
+                }
+                _in[v] = null;
+                _inSize[v] = 0;
             }
+            _out[v] = null;
+            _outSize[v] = 0;
         }
     }
 
     @Override
     public void remove(int u, int v) {
-        if (contains(u, v)) {
-            ArrayList<int[]> toRemove = new ArrayList<>();
-            for (int[] edge : edges) {
-                if (edge[0] == u && edge[1] == v) {
-                    toRemove.add(edge);
-                }
-                if (!isDirected() && u != v) {
-                    if (edge[0] == v && edge[1] == u) {
-                        toRemove.add(edge);
-                    }
-                }
-            }
-            for (int[] edge : toRemove) {
-                edges.remove(edge);
+        _modCount += 1;
+        if (_lazy) {
+            markRemoved(u, v);
+            compactIfCrowded();
+        } else if (contains(u) && contains(v)
+                   && _edges.remove(key(u, v)) != 0) {
+            delete(_out, _outSize, u, v);
+            if (isDirected() || u != v) {
+                delete(_in, _inSize, v, u);
             }
         }
     }
 
     @Override
     public Iteration<Integer> vertices() {
-        return new VerticesIteration();
+        return Iteration.iteration(verticesInt());
     }
 
     @Override
     public Iteration<Integer> successors(int v) {
-        return new SuccessorsIteration(v);
+        return Iteration.iteration(successorsInt(v));
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return Iteration.iteration(predecessorsInt(v));
     }
 
     @Override
-    public abstract Iteration<Integer> predecessors(int v);
+    public IntIteration verticesInt() {
+        return new VerticesIteration();
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.iteration(null, 0, 0);
+        }
+        if (_touched.get(v)) {
+            return new LiveIteration(v, true);
+        }
+        return IntIteration.iteration(_out[v], 0, _outSize[v]);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.iteration(null, 0, 0);
+        }
+        if (_touched.get(v)) {
+            return new LiveIteration(v, false);
+        }
+        return IntIteration.iteration(_in[v], 0, _inSize[v]);
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            int[] row = _out[v];
+            boolean touched = _touched.get(v);
+            for (int i = 0, n = _outSize[v]; i < n; i += 1) {
+                if (!touched || live(v, row[i])) {
+                    action.accept(row[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            int[] row = _in[v];
+            boolean touched = _touched.get(v);
+            for (int i = 0, n = _inSize[v]; i < n; i += 1) {
+                if (!touched || live(row[i], v)) {
+                    action.accept(row[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachEdge(IntBinaryConsumer action) {
+        boolean directed = isDirected();
+        for (int u = 1; u < _outSize.length; u += 1) {
+            int[] row = _out[u];
+            boolean touched = _touched.get(u);
+            for (int i = 0, n = _outSize[u]; i < n; i += 1) {
+                if ((directed || row[i] >= u)
+                    && (!touched || live(u, row[i]))) {
+                    action.accept(u, row[i]);
+                }
+            }
+        }
+    }
 
     @Override
     public Iteration<int[]> edges() {
         return new EdgesIteration();
     }
 
-    /* Commented out
     @Override
-    protected void checkMyVertex(int v) {
-
+    protected int modCount() {
+        return _modCount;
     }
-    */
 
     @Override
     protected int edgeId(int u, int v) {
-        return (((u + v) * (u + v + 1)) / 2) + v;
-    }
-
-    /** Array of LinkedLists representing vertices
-     * and the list of edges to other vertices. */
-    protected ArrayList<Integer> verts;
-    /** ArrayList of edges as two element int arrays. */
-    protected ArrayList<int[]> edges;
-    /** Number of vertices. */
-    private int numVertex;
-    /** Number of edges. */
-    private int numEdge;
-
-    /** Iteration over successors of given vertex. */
-    private class SuccessorsIteration extends Iteration<Integer> {
-
-        /** Constructor.
-         * @param V */
-        SuccessorsIteration(int V) {
-            this.v = V;
-            index = 0;
-            alreadyUsed = new ArrayList<>();
-            toNext();
+        if (!contains(u) || !contains(v)) {
+            return 0;
         }
+        return _edges.get(key(u, v));
+    }
 
-        @Override
-        public boolean hasNext() {
-            return index < edges.size();
+    /** Remove all vertices in VS that are present, with their edges.
+     *  The adjacency lists are compacted once, at the end, so the cost is
+     *  proportional to the total degree of the removed vertices and their
+     *  neighbors, rather than to that total times the degrees involved. */
+    public void removeVertices(int... vs) {
+        _modCount += 1;
+        for (int v : vs) {
+            markRemoved(v);
         }
+        if (!_lazy) {
+            compact();
+        }
+    }
 
-        @Override
-        public Integer next() {
-            int ans = edges.get(index)[1];
-            alreadyUsed.add(ans);
-            index++;
-            toNext();
-            return ans;
+    /** Remove all edges (US[i], VS[i]) that are present.  As for
+     *  removeVertices, the affected adjacency lists are compacted once. */
+    public void removeEdges(int[] us, int[] vs) {
+        if (us.length != vs.length) {
+            throw new IllegalArgumentException("edge arrays differ in length");
         }
+        _modCount += 1;
+        for (int i = 0; i < us.length; i += 1) {
+            markRemoved(us[i], vs[i]);
+        }
+        if (!_lazy) {
+            compact();
+        }
+    }
+
+    /** Turn deferred removal on iff LAZY.  While it is on, remove(v) and
+     *  remove(u, v) take effect immediately for every query, but leave
+     *  tombstones in the adjacency lists, which reads skip.  These are
+     *  compacted in a single pass when the graph next grows, when they
+     *  come to outnumber the live edges, or when LAZY is false. */
+    public void setLazyDeletion(boolean lazy) {
+        _lazy = lazy;
+        if (!lazy) {
+            compact();
+        }
+    }
 
-        /** Advances index correctly. */
-        public void toNext() {
-            if (hasNext()) {
-                int[] cur = edges.get(index);
-                if (cur[0] != v || alreadyUsed.contains(cur[1])) {
-                    index++;
-                    toNext();
+    /** Remove V, if present, from the vertex and edge indices, leaving
+     *  tombstones in the lists of its neighbors. */
+    private void markRemoved(int v) {
+        if (_vertices.remove(v)) {
+            for (int i = 0; i < _outSize[v]; i += 1) {
+                int w = _out[v][i];
+                if (_edges.remove(key(v, w)) != 0) {
+                    _stale += 1;
                 }
+                _touched.set(w);
             }
+            if (isDirected()) {
+                for (int i = 0; i < _inSize[v]; i += 1) {
+                    int w = _in[v][i];
+                    if (_edges.remove(key(w, v)) != 0) {
+                        _stale += 1;
+                    }
+                    _touched.set(w);
+                }
+                _in[v] = null;
+                _inSize[v] = 0;
+            }
+            _out[v] = null;
+            _outSize[v] = 0;
+        }
+    }
+
+    /** Remove edge (U, V), if present, from the edge index, leaving
+     *  tombstones in the lists of U and V. */
+    private void markRemoved(int u, int v) {
+        if (contains(u) && contains(v) && _edges.remove(key(u, v)) != 0) {
+            _stale += 1;
+            _touched.set(u);
+            _touched.set(v);
+        }
+    }
+
+    /** Returns true iff the entry for (U, V) in the lists of U and V
+     *  is not a tombstone. */
+    private boolean live(int u, int v) {
+        return contains(u) && contains(v) && _edges.get(key(u, v)) != 0;
+    }
+
+    /** Compact if any lists contain tombstones. */
+    private void compactIfStale() {
+        if (!_touched.isEmpty()) {
+            compact();
+        }
+    }
+
+    /** Compact if tombstones outnumber live edges. */
+    private void compactIfCrowded() {
+        if (_stale > edgeSize()) {
+            compact();
         }
+    }
 
-        /** Current index. */
-        private int index;
-        /** The vertex. */
-        private int v;
-        /** ArrayList of all vertices already used. */
-        private ArrayList<Integer> alreadyUsed;
+    /** Remove all tombstones, making one pass over each list that may
+     *  contain them.  An entry w in the successor list of v survives iff w
+     *  is still a vertex and (v, w) is still an edge, and likewise for
+     *  predecessor lists. */
+    private void compact() {
+        for (int v = _touched.nextSetBit(0); v >= 0;
+             v = _touched.nextSetBit(v + 1)) {
+            if (!contains(v)) {
+                _out[v] = null;
+                _outSize[v] = 0;
+                _in[v] = null;
+                _inSize[v] = 0;
+                continue;
+            }
+            int n;
+            n = 0;
+            for (int i = 0; i < _outSize[v]; i += 1) {
+                int w = _out[v][i];
+                if (contains(w) && _edges.get(key(v, w)) != 0) {
+                    _out[v][n] = w;
+                    n += 1;
+                }
+            }
+            _outSize[v] = n;
+            if (isDirected()) {
+                n = 0;
+                for (int i = 0; i < _inSize[v]; i += 1) {
+                    int w = _in[v][i];
+                    if (contains(w) && _edges.get(key(w, v)) != 0) {
+                        _in[v][n] = w;
+                        n += 1;
+                    }
+                }
+                _inSize[v] = n;
+            }
+        }
+        _touched.clear();
+        _stale = 0;
     }
 
-    /** Iteration over the vertices of graph. */
-    private class VerticesIteration extends Iteration<Integer> {
+    /** Add vertices 1 .. N and the M edges whose keys (as from key(u, v))
+     *  are KEYS[0 .. M-1] to me.  I must be empty, and the keys must be
+     *  distinct, sorted, and refer only to vertices 1 .. N.  Edges get ids
+     *  1 .. M in the order of KEYS.  Takes O(N + M) time. */
+    void load(int n, long[] keys, int m) {
+        assert vertexSize() == 0;
+        reserve(n + 1);
+        for (int i = 0; i < n; i += 1) {
+            _vertices.add();
+        }
+        int[] outCount = new int[n + 1], inCount = new int[n + 1];
+        for (int i = 0; i < m; i += 1) {
+            int u = (int) (keys[i] >>> Integer.SIZE), v = (int) keys[i];
+            outCount[u] += 1;
+            if (isDirected()) {
+                inCount[v] += 1;
+            } else if (u != v) {
+                outCount[v] += 1;
+            }
+        }
+        for (int v = 1; v <= n; v += 1) {
+            _out[v] = new int[Math.max(outCount[v], INITIAL_DEGREE)];
+            if (isDirected()) {
+                _in[v] = new int[Math.max(inCount[v], INITIAL_DEGREE)];
+            }
+        }
+        _edges.reserve(m);
+        for (int i = 0; i < m; i += 1) {
+            int u = (int) (keys[i] >>> Integer.SIZE), v = (int) keys[i];
+            _edges.put(keys[i]);
+            _out[u][_outSize[u]++] = v;
+            if (isDirected() || u != v) {
+                _in[v][_inSize[v]++] = u;
+            }
+        }
+    }
+
+    /** Grow my per-vertex tables to hold vertices up to N - 1. */
+    private void reserve(int n) {
+        if (n > _outSize.length) {
+            _out = Arrays.copyOf(_out, n);
+            _outSize = Arrays.copyOf(_outSize, n);
+            if (isDirected()) {
+                _in = Arrays.copyOf(_in, n);
+                _inSize = Arrays.copyOf(_inSize, n);
+            } else {
+                _in = _out;
+                _inSize = _outSize;
+            }
+        }
+    }
+
+    /** Returns the EdgeIndex key for (U, V).  The key of an undirected
+     *  edge does not depend on the order of its end points. */
+    long key(int u, int v) {
+        if (!isDirected() && u > v) {
+            return EdgeIndex.key(v, u);
+        }
+        return EdgeIndex.key(u, v);
+    }
+
+    /** Returns the index of X in ROW[0 .. SIZE-1], or -1 if absent. */
+    private static int indexOf(int[] row, int size, int x) {
+        for (int i = 0; i < size; i += 1) {
+            if (row[i] == x) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Append X to list V of LISTS, whose sizes are in SIZES. */
+    private static void append(int[][] lists, int[] sizes, int v, int x) {
+        int[] row = lists[v];
+        if (row == null) {
+            row = lists[v] = new int[INITIAL_DEGREE];
+        } else if (sizes[v] == row.length) {
+            row = lists[v] = Arrays.copyOf(row, 2 * row.length);
+        }
+        row[sizes[v]] = x;
+        sizes[v] += 1;
+    }
+
+    /** Remove X, if present, from list V of LISTS, whose sizes are in
+     *  SIZES, by moving the last entry into its place. */
+    private static void delete(int[][] lists, int[] sizes, int v, int x) {
+        int i = indexOf(lists[v], sizes[v], x);
+        if (i >= 0) {
+            sizes[v] -= 1;
+            lists[v][i] = lists[v][sizes[v]];
+        }
+    }
+
+    /** Initial capacity of the per-vertex tables. */
+    private static final int INITIAL_VERTICES = 16;
+    /** Initial capacity of an adjacency list. */
+    private static final int INITIAL_DEGREE = 4;
+
+    /** The vertex numbers currently in use. */
+    private final VertexSet _vertices;
+    /** Successor lists, indexed by vertex. */
+    private int[][] _out;
+    /** Lengths of the successor lists. */
+    private int[] _outSize;
+    /** Predecessor lists, indexed by vertex (_out if undirected). */
+    private int[][] _in;
+    /** Lengths of the predecessor lists (_outSize if undirected). */
+    private int[] _inSize;
+    /** Ids of my edges. */
+    private final EdgeIndex _edges;
+    /** True iff removals are deferred (see setLazyDeletion). */
+    private boolean _lazy;
+    /** Vertices whose lists may contain tombstones. */
+    private final BitSet _touched;
+    /** Number of edges removed since the last compaction. */
+    private int _stale;
+    /** Number of calls that may have changed my vertices or edges. */
+    private int _modCount;
+
+    /** Iteration over the vertices of graph in increasing order. */
+    private class VerticesIteration extends IntIteration {
 
         /** Constructor. */
         VerticesIteration() {
-            orderedVerts = new PriorityQueue<>();
-            orderedVerts.addAll(verts);
+            _next = _vertices.next(1);
         }
 
         @Override
         public boolean hasNext() {
-            return !orderedVerts.isEmpty();
+            return _next > 0;
         }
 
         @Override
-        public Integer next() {
-            return orderedVerts.poll();
+        public int nextInt() {
+            int v = _next;
+            _next = _vertices.next(v + 1);
+            return v;
         }
 
-        /** Priority Queue of ordered vertices. */
-        private PriorityQueue<Integer> orderedVerts;
+        /** Next vertex to return, or -1 if none. */
+        private int _next;
     }
 
-    /** Iteration over the edges of graph. */
+    /** Iteration over the live entries of a list that may contain
+     *  tombstones. */
+    private class LiveIteration extends IntIteration {
+
+        /** Iterate over the successors of V if OUT, and otherwise over its
+         *  predecessors. */
+        LiveIteration(int v, boolean out) {
+            _v = v;
+            _isOut = out;
+            _row = out ? _out[v] : _in[v];
+            _size = out ? _outSize[v] : _inSize[v];
+            toNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _size;
+        }
+
+        @Override
+        public int nextInt() {
+            int w = _row[_index];
+            _index += 1;
+            toNext();
+            return w;
+        }
+
+        /** Advance _index to the next live entry, or to _size. */
+        private void toNext() {
+            while (_index < _size
+                   && !(_isOut ? live(_v, _row[_index])
+                        : live(_row[_index], _v))) {
+                _index += 1;
+            }
+        }
+
+        /** The vertex whose list I iterate over. */
+        private final int _v;
+        /** True iff the list is of successors. */
+        private final boolean _isOut;
+        /** The list and its length. */
+        private final int[] _row;
+        /** Length of _row's contents. */
+        private final int _size;
+        /** Index of the next entry. */
+        private int _index;
+    }
+
+    /** Iteration over the edges of graph, by increasing source vertex.  In
+     *  an undirected graph, each edge is returned once, as (u, v) with
+     *  u <= v. */
     private class EdgesIteration extends Iteration<int[]> {
 
         /** Constructor. */
         EdgesIteration() {
-            index = 0;
+            _u = 0;
+            _index = 0;
+            toNext();
         }
 
         @Override
         public boolean hasNext() {
-            return index < edges.size();
+            return _u < _outSize.length;
         }
 
         @Override
         public int[] next() {
-            int[] ans = edges.get(index);
-            if (!isDirected()) {
-                index += 2;
-            } else {
-                index += 1;
+            _edge[0] = _u;
+            _edge[1] = _out[_u][_index];
+            _index += 1;
+            toNext();
+            return _edge;
+        }
+
+        /** Advance _u and _index to the next edge to be returned. */
+        private void toNext() {
+            while (_u < _outSize.length) {
+                boolean touched = _touched.get(_u);
+                while (_index < _outSize[_u]) {
+                    int v = _out[_u][_index];
+                    if ((isDirected() || v >= _u)
+                        && (!touched || live(_u, v))) {
+                        return;
+                    }
+                    _index += 1;
+                }
+                _u += 1;
+                _index = 0;
             }
-            return ans;
         }
 
-        /** Index in edges. */
-        private int index;
+        /** Source of the current list. */
+        private int _u;
+        /** Current index in _out[_u]. */
+        private int _index;
+        /** Array used to return all results. */
+        private final int[] _edge = new int[2];
     }
 
 }
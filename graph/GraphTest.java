@@ -1,6 +1,20 @@
 package graph;
 
 import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.Assert.*;
 
 /** Unit tests for the Graph class.
@@ -134,4 +148,1456 @@ public class GraphTest {
         assertEquals(3, v);
     }
 
+    /** Tests that a frozen directed graph matches the original. */
+    @Test
+    public void testFreezeDirected() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            dg.add();
+        }
+        dg.add(3, 1);
+        dg.add(1, 2);
+        dg.add(1, 5);
+        dg.add(4, 4);
+        dg.add(5, 1);
+        dg.remove(4);
+
+        Graph fg = dg.freeze();
+        assertTrue(fg.isDirected());
+        assertEquals(dg.vertexSize(), fg.vertexSize());
+        assertEquals(dg.maxVertex(), fg.maxVertex());
+        assertEquals(dg.edgeSize(), fg.edgeSize());
+        assertFalse(fg.contains(4));
+        assertEquals(2, fg.outDegree(1));
+        assertEquals(2, fg.inDegree(1));
+        assertEquals(0, fg.outDegree(4));
+
+        Iteration<Integer> succ = fg.successors(1);
+        assertEquals(2, (int) succ.next());
+        assertEquals(5, (int) succ.next());
+        assertFalse(succ.hasNext());
+        Iteration<Integer> pred = fg.predecessors(1);
+        assertEquals(3, (int) pred.next());
+        assertEquals(5, (int) pred.next());
+        assertFalse(pred.hasNext());
+
+        for (int u = 0; u <= 6; u += 1) {
+            for (int v = 0; v <= 6; v += 1) {
+                assertEquals(dg.contains(u, v), fg.contains(u, v));
+                if (dg.contains(u, v)) {
+                    assertEquals(dg.edgeId(u, v), fg.edgeId(u, v));
+                }
+            }
+        }
+        assertSame(fg, fg.freeze());
+    }
+
+    /** Tests that a frozen undirected graph matches the original and
+     *  cannot be modified. */
+    @Test
+    public void testFreezeUndirected() {
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            ug.add();
+        }
+        ug.add(2, 1);
+        ug.add(2, 3);
+        ug.add(3, 3);
+
+        Graph fg = ug.freeze();
+        assertFalse(fg.isDirected());
+        assertEquals(3, fg.edgeSize());
+        assertEquals(2, fg.degree(2));
+        assertEquals(2, fg.degree(3));
+        assertEquals(0, fg.degree(4));
+        assertTrue(fg.contains(1, 2));
+        assertTrue(fg.contains(2, 1));
+        assertTrue(fg.contains(3, 3));
+
+        int count = 0;
+        for (int[] e : fg.edges()) {
+            assertTrue(e[0] <= e[1]);
+            assertTrue(ug.contains(e[0], e[1]));
+            count += 1;
+        }
+        assertEquals(3, count);
+
+        try {
+            fg.add();
+            fail("frozen graph was modified");
+        } catch (UnsupportedOperationException excp) {
+            /* Expected. */
+        }
+    }
+
+    /** Tests degrees and adjacency after removing edges and vertices. */
+    @Test
+    public void testDegreesAfterRemoval() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            dg.add();
+        }
+        dg.add(1, 2);
+        dg.add(1, 3);
+        dg.add(1, 4);
+        dg.add(2, 1);
+        dg.add(1, 1);
+        dg.add(1, 2);
+        assertEquals(5, dg.edgeSize());
+        assertEquals(4, dg.outDegree(1));
+        assertEquals(2, dg.inDegree(1));
+
+        dg.remove(1, 3);
+        assertFalse(dg.contains(1, 3));
+        assertTrue(dg.contains(1, 4));
+        assertEquals(3, dg.outDegree(1));
+        assertEquals(0, dg.inDegree(3));
+
+        dg.remove(1);
+        assertEquals(0, dg.edgeSize());
+        assertEquals(0, dg.outDegree(2));
+        assertEquals(0, dg.inDegree(4));
+        assertFalse(dg.successors(2).hasNext());
+    }
+
+    /** Tests that released vertex numbers are reused smallest first, and
+     *  that maxVertex tracks removals. */
+    @Test
+    public void testVertexReuse() {
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 1; i <= 100; i += 1) {
+            assertEquals(i, ug.add());
+        }
+        ug.remove(100);
+        ug.remove(99);
+        ug.remove(40);
+        ug.remove(7);
+        assertEquals(98, ug.maxVertex());
+        assertEquals(96, ug.vertexSize());
+        assertFalse(ug.contains(40));
+        assertEquals(7, ug.add());
+        assertEquals(40, ug.add());
+        assertEquals(99, ug.add());
+        assertEquals(99, ug.maxVertex());
+        assertEquals(100, ug.add());
+        assertEquals(101, ug.add());
+        assertEquals(101, ug.maxVertex());
+    }
+
+    /** Tests that edge ids stay small and are reused after removal. */
+    @Test
+    public void testEdgeIds() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 50000; i += 1) {
+            dg.add();
+        }
+        int e1 = dg.add(49999, 50000);
+        int e2 = dg.add(50000, 49999);
+        int e3 = dg.add(1, 50000);
+        assertTrue(e1 > 0 && e2 > 0 && e3 > 0);
+        assertTrue(e1 <= 3 && e2 <= 3 && e3 <= 3);
+        assertTrue(e1 != e2 && e2 != e3 && e1 != e3);
+        assertEquals(e1, dg.add(49999, 50000));
+        assertEquals(e2, dg.edgeId(50000, 49999));
+        assertEquals(0, dg.edgeId(50000, 1));
+
+        dg.remove(49999, 50000);
+        assertEquals(0, dg.edgeId(49999, 50000));
+        assertEquals(e1, dg.add(2, 3));
+        dg.remove(50000);
+        assertEquals(1, dg.edgeSize());
+        assertTrue(dg.add(4, 5) <= 3);
+
+        UndirectedGraph ug = new UndirectedGraph();
+        ug.add();
+        ug.add();
+        int e = ug.add(2, 1);
+        assertEquals(e, ug.edgeId(1, 2));
+        assertEquals(e, ug.add(1, 2));
+    }
+
+    /** Tests the primitive iterations against the boxed ones. */
+    @Test
+    public void testIntIterations() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            dg.add();
+        }
+        dg.add(1, 2);
+        dg.add(1, 3);
+        dg.add(4, 3);
+        dg.remove(2);
+        Graph[] graphs = { dg, dg.freeze(), new GraphFilter(dg),
+                           new LabeledGraph<String, String>(dg) };
+        for (Graph g : graphs) {
+            IntIteration verts = g.verticesInt();
+            for (int v : g.vertices()) {
+                assertEquals(v, verts.nextInt());
+                IntIteration succ = g.successorsInt(v);
+                for (int w : g.successors(v)) {
+                    assertEquals(w, succ.nextInt());
+                }
+                assertFalse(succ.hasNext());
+                IntIteration pred = g.predecessorsInt(v);
+                for (int w : g.predecessors(v)) {
+                    assertEquals(w, pred.nextInt());
+                }
+                assertFalse(pred.hasNext());
+            }
+            assertFalse(verts.hasNext());
+            assertFalse(g.successorsInt(2).hasNext());
+        }
+    }
+
+    /** Tests that a GraphFilter that hides an edge by overriding only
+     *  successors and predecessors hides it from the unboxed iterations,
+     *  the visitors, and shortest paths. */
+    @Test
+    public void testFilterOverridingSuccessors() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 3; i += 1) {
+            dg.add();
+        }
+        dg.add(1, 2);
+        dg.add(2, 3);
+        dg.add(1, 3);
+        Graph g = new GraphFilter(dg) {
+            @Override
+            public Iteration<Integer> successors(int v) {
+                List<Integer> result = new ArrayList<>();
+                for (int w : super.successors(v)) {
+                    if (v != 1 || w != 3) {
+                        result.add(w);
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+
+            @Override
+            public Iteration<Integer> predecessors(int v) {
+                List<Integer> result = new ArrayList<>();
+                for (int u : super.predecessors(v)) {
+                    if (u != 1 || v != 3) {
+                        result.add(u);
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+        };
+        ArrayList<Integer> visited = new ArrayList<>();
+        g.forEachSuccessor(1, visited::add);
+        assertEquals(List.of(2), visited);
+        visited.clear();
+        g.forEachPredecessor(3, visited::add);
+        assertEquals(List.of(2), visited);
+        IntIteration succ = g.successorsInt(1);
+        assertEquals(2, succ.nextInt());
+        assertFalse(succ.hasNext());
+
+        for (boolean both : new boolean[] { false, true }) {
+            SimpleShortestPaths paths = new SimpleShortestPaths(g, 1, 3) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return 1;
+                }
+            };
+            paths.setBidirectional(both);
+            paths.setPaths();
+            assertEquals(List.of(1, 2, 3), paths.pathTo(3));
+        }
+    }
+
+    /** Tests the forEach... visitors against the iterations. */
+    @Test
+    public void testVisitors() {
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            ug.add();
+        }
+        ug.add(1, 2);
+        ug.add(3, 1);
+        ug.add(4, 4);
+        Graph[] graphs = { ug, ug.freeze(), new GraphFilter(ug),
+                           new LabeledGraph<String, String>(ug) };
+        for (Graph g : graphs) {
+            for (int v : g.vertices()) {
+                ArrayList<Integer> expected = new ArrayList<>();
+                for (int w : g.successors(v)) {
+                    expected.add(w);
+                }
+                ArrayList<Integer> visited = new ArrayList<>();
+                g.forEachSuccessor(v, visited::add);
+                assertEquals(expected, visited);
+                visited.clear();
+                g.forEachPredecessor(v, visited::add);
+                assertEquals(expected, visited);
+            }
+            int[] count = new int[1];
+            g.forEachEdge((u, v) -> {
+                assertTrue(u <= v);
+                assertTrue(g.contains(u, v));
+                count[0] += 1;
+            });
+            assertEquals(3, count[0]);
+        }
+    }
+
+    /** Tests that depth-first and breadth-first traversals visit the same
+     *  vertices in the same order with either kind of marks, when reused
+     *  after clear, and after vertices are added to the graph. */
+    @Test
+    public void testTraversalMarks() {
+        Random rand = new Random(24);
+        DirectedGraph g = new DirectedGraph();
+        for (int v = 1; v <= 200; v += 1) {
+            g.add();
+        }
+        for (int k = 0; k < 500; k += 1) {
+            g.add(1 + rand.nextInt(200), 1 + rand.nextInt(200));
+        }
+        List<Integer> pre = new ArrayList<>(), post = new ArrayList<>(),
+            levels = new ArrayList<>();
+        DepthFirstTraversal dfs = new DepthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                pre.add(v);
+                return true;
+            }
+
+            @Override
+            protected boolean postVisit(int v) {
+                post.add(v);
+                return true;
+            }
+        };
+        BreadthFirstTraversal bfs = new BreadthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                levels.add(v);
+                return true;
+            }
+        };
+        dfs.traverse(1);
+        bfs.traverse(1);
+        List<Integer> pre0 = new ArrayList<>(pre),
+            post0 = new ArrayList<>(post), levels0 = new ArrayList<>(levels);
+        assertEquals(new HashSet<>(pre0), new HashSet<>(post0));
+        assertEquals(new HashSet<>(pre0), new HashSet<>(levels0));
+        for (boolean reusable : new boolean[] { false, true }) {
+            dfs.setReusable(reusable);
+            bfs.setReusable(reusable);
+            for (int trial = 0; trial < 3; trial += 1) {
+                pre.clear();
+                post.clear();
+                levels.clear();
+                dfs.clear();
+                bfs.clear();
+                dfs.traverse(1);
+                bfs.traverse(1);
+                assertEquals(pre0, pre);
+                assertEquals(trial == 0 ? post0 : List.of(), post);
+                assertEquals(levels0, levels);
+            }
+        }
+
+        int v = g.add(), w = g.add();
+        g.add(v, w);
+        g.add(w, 1);
+        pre.clear();
+        dfs.clear();
+        dfs.traverse(v);
+        assertEquals(v, (int) pre.get(0));
+        assertEquals(w, (int) pre.get(1));
+        assertEquals(pre0.size() + 2, pre.size());
+    }
+
+    /** Tests that traverseLevels sees a change in the view of a
+     *  GraphFilter whose underlying graph has not changed. */
+    @Test
+    public void testTraverseLevelsFilter() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 3; i += 1) {
+            dg.add();
+        }
+        dg.add(1, 2);
+        dg.add(2, 3);
+        boolean[] hide = { false };
+        Graph g = new GraphFilter(dg) {
+            @Override
+            public boolean contains(int u, int v) {
+                return super.contains(u, v) && !(hide[0] && u == 1);
+            }
+
+            @Override
+            public Iteration<Integer> successors(int v) {
+                List<Integer> result = new ArrayList<>();
+                for (int w : super.successors(v)) {
+                    if (contains(v, w)) {
+                        result.add(w);
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+
+            @Override
+            public Iteration<Integer> predecessors(int v) {
+                List<Integer> result = new ArrayList<>();
+                for (int u : super.predecessors(v)) {
+                    if (contains(u, v)) {
+                        result.add(u);
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+
+            @Override
+            public int edgeSize() {
+                return hide[0] ? 1 : 2;
+            }
+
+            @Override
+            public Iteration<int[]> edges() {
+                List<int[]> result = new ArrayList<>();
+                for (int[] e : super.edges()) {
+                    if (contains(e[0], e[1])) {
+                        result.add(e.clone());
+                    }
+                }
+                return Iteration.iteration(result);
+            }
+        };
+        BreadthFirstTraversal bfs = new BreadthFirstTraversal(g);
+        bfs.traverseLevels(1);
+        assertEquals(2, bfs.hopDistances()[3]);
+        hide[0] = true;
+        bfs.traverseLevels(1);
+        assertEquals(-1, bfs.hopDistances()[3]);
+    }
+
+    /** Tests traverseLevels against a sequential breadth-first search on
+     *  random directed and undirected graphs, dense enough that some
+     *  levels are found bottom-up, and its visits by level. */
+    @Test
+    public void testTraverseLevels() {
+        Random rand = new Random(25);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        final int n = 5000;
+        for (GraphObj g : new GraphObj[] { new DirectedGraph(),
+                                           new UndirectedGraph() }) {
+            for (int v = 1; v <= n; v += 1) {
+                g.add();
+            }
+            for (int k = 0; k < 6 * n; k += 1) {
+                g.add(1 + rand.nextInt(n), 1 + rand.nextInt(n));
+            }
+            g.remove(17);
+            int[] expected = new int[n + 1];
+            Arrays.fill(expected, -1);
+            expected[1] = 0;
+            ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(1));
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                g.forEachSuccessor(u, v -> {
+                    if (expected[v] < 0) {
+                        expected[v] = expected[u] + 1;
+                        queue.add(v);
+                    }
+                });
+            }
+
+            List<Integer> visited = new ArrayList<>();
+            int[] stopAt = { n + 1 };
+            BreadthFirstTraversal bfs = new BreadthFirstTraversal(g) {
+                @Override
+                protected boolean visit(int v) {
+                    visited.add(v);
+                    return visited.size() < stopAt[0];
+                }
+            };
+            bfs.setPool(pool);
+            try {
+                bfs.hopDistances();
+                fail("results before traverseLevels");
+            } catch (IllegalStateException excp) {
+                /* Expected. */
+            }
+            bfs.traverseLevels(1);
+            assertTrue(visited.isEmpty());
+            assertTrue(bfs.levels().bottomUpLevels() > 0);
+            int[] dist = bfs.hopDistances(), parents = bfs.parents();
+            assertArrayEquals(expected, dist);
+            assertEquals(0, parents[1]);
+            for (int v = 2; v <= n; v += 1) {
+                if (dist[v] > 0) {
+                    assertTrue(g.contains(parents[v], v));
+                    assertEquals(dist[v] - 1, dist[parents[v]]);
+                } else {
+                    assertEquals(0, parents[v]);
+                }
+            }
+
+            bfs.setVisiting(true);
+            bfs.traverseLevels(1);
+            int reached;
+            reached = 0;
+            for (int v = 1; v <= n; v += 1) {
+                if (expected[v] >= 0) {
+                    reached += 1;
+                }
+            }
+            assertEquals(reached, visited.size());
+            for (int k = 1; k < visited.size(); k += 1) {
+                int u = visited.get(k - 1), v = visited.get(k);
+                assertTrue(expected[u] < expected[v]
+                           || expected[u] == expected[v] && u < v);
+                assertTrue(bfs.marked(v));
+            }
+
+            visited.clear();
+            stopAt[0] = 10;
+            LevelSearch search = bfs.levels();
+            bfs.traverseLevels(1);
+            assertEquals(10, visited.size());
+            assertSame(search, bfs.levels());
+
+            bfs.setVisiting(false);
+            int w = g.add();
+            g.add(1, w);
+            bfs.traverseLevels(1);
+            assertNotSame(search, bfs.levels());
+            assertEquals(1, bfs.hopDistances()[w]);
+            assertEquals(1, bfs.parents()[w]);
+        }
+        pool.shutdown();
+    }
+
+    /** Tests bulk construction with duplicate edges and labels. */
+    @Test
+    public void testGraphBuilder() {
+        int[] src = { 1, 2, 3, 1, 4 };
+        int[] dst = { 2, 3, 1, 2, 4 };
+        GraphBuilder builder = new GraphBuilder(4, src, dst);
+        DirectedGraph dg = builder.directed();
+        assertEquals(4, dg.vertexSize());
+        assertEquals(4, dg.edgeSize());
+        assertTrue(dg.contains(1, 2));
+        assertTrue(dg.contains(4, 4));
+        assertFalse(dg.contains(2, 1));
+        assertEquals(1, dg.inDegree(2));
+        assertEquals(5, dg.add());
+
+        UndirectedGraph ug = new GraphBuilder(3, new int[] { 1, 2, 1 },
+                                              new int[] { 2, 1, 3 })
+            .undirected();
+        assertEquals(2, ug.edgeSize());
+        assertEquals(2, ug.degree(1));
+        assertTrue(ug.contains(2, 1));
+
+        LabeledGraph<String, String> lg =
+            new LabeledGraph<>(builder.directed());
+        builder.label(lg, Arrays.asList("a", "b", "c", "d"),
+                      Arrays.asList("x", "y", "z", "w", "v"));
+        assertEquals("c", lg.getLabel(3));
+        assertEquals("w", lg.getLabel(1, 2));
+        assertEquals("v", lg.getLabel(4, 4));
+    }
+
+    /** Tests bulk and deferred removal. */
+    @Test
+    public void testBulkRemoval() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 6; i += 1) {
+            dg.add();
+        }
+        for (int u = 1; u <= 6; u += 1) {
+            for (int v = 1; v <= 6; v += 1) {
+                dg.add(u, v);
+            }
+        }
+        dg.removeVertices(2, 5, 7);
+        assertEquals(4, dg.vertexSize());
+        assertEquals(16, dg.edgeSize());
+        assertEquals(4, dg.outDegree(1));
+        assertEquals(4, dg.inDegree(6));
+        dg.removeEdges(new int[] { 1, 1, 3 }, new int[] { 3, 1, 2 });
+        assertEquals(14, dg.edgeSize());
+        assertEquals(2, dg.outDegree(1));
+        assertEquals(3, dg.inDegree(3));
+
+        dg.setLazyDeletion(true);
+        dg.remove(6);
+        dg.remove(4, 3);
+        assertFalse(dg.contains(6));
+        assertFalse(dg.contains(4, 3));
+        assertEquals(6, dg.edgeSize());
+        assertEquals(1, dg.outDegree(1));
+        assertEquals(1, dg.inDegree(3));
+        int n;
+        n = 0;
+        for (int[] e : dg.edges()) {
+            assertTrue(dg.contains(e[0], e[1]));
+            n += 1;
+        }
+        assertEquals(6, n);
+        dg.remove(3);
+        assertEquals(2, dg.add());
+        assertEquals(3, dg.add());
+        assertEquals(0, dg.inDegree(3));
+        assertEquals(2, dg.outDegree(4));
+        dg.setLazyDeletion(false);
+
+        Random rand = new Random(8);
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphObj ref = directed ? new DirectedGraph()
+                : new UndirectedGraph();
+            GraphObj lazy = directed ? new DirectedGraph()
+                : new UndirectedGraph();
+            lazy.setLazyDeletion(true);
+            for (int i = 0; i < 30; i += 1) {
+                ref.add();
+                lazy.add();
+            }
+            for (int k = 0; k < 300; k += 1) {
+                int u = 1 + rand.nextInt(30), v = 1 + rand.nextInt(30);
+                if (ref.contains(u) && ref.contains(v)) {
+                    ref.add(u, v);
+                    lazy.add(u, v);
+                }
+            }
+            for (int k = 0; k < 60; k += 1) {
+                int u = 1 + rand.nextInt(30), v = 1 + rand.nextInt(30);
+                if (k % 10 == 0) {
+                    ref.remove(u);
+                    lazy.remove(u);
+                } else {
+                    ref.remove(u, v);
+                    lazy.remove(u, v);
+                }
+                assertSameGraph(ref, lazy);
+                int[] count = new int[1];
+                lazy.forEachEdge((a, b) -> {
+                    assertTrue(ref.contains(a, b));
+                    count[0] += 1;
+                });
+                assertEquals(ref.edgeSize(), count[0]);
+            }
+            assertSameGraph(ref, lazy.freeze());
+            assertEquals(ref.add(), lazy.add());
+            lazy.setLazyDeletion(false);
+            assertSameGraph(ref, lazy);
+        }
+    }
+
+    /** Tests that OffHeapGraphs agree with on-heap graphs under random
+     *  additions and removals. */
+    @Test
+    public void testOffHeapGraph() {
+        for (boolean directed : new boolean[] { true, false }) {
+            Graph ref = directed ? new DirectedGraph() : new UndirectedGraph();
+            Random rand = new Random(directed ? 1 : 2);
+            try (OffHeapGraph g = new OffHeapGraph(directed)) {
+                for (int i = 0; i < 40; i += 1) {
+                    assertEquals(ref.add(), g.add());
+                }
+                for (int k = 0; k < 4000; k += 1) {
+                    int u = 1 + rand.nextInt(40), v = 1 + rand.nextInt(40);
+                    int op = rand.nextInt(20);
+                    if (op == 0) {
+                        ref.remove(u);
+                        g.remove(u);
+                        assertEquals(ref.add(), g.add());
+                    } else if (op < 8) {
+                        ref.remove(u, v);
+                        g.remove(u, v);
+                    } else if (ref.contains(u) && ref.contains(v)) {
+                        ref.add(u, v);
+                        g.add(u, v);
+                    }
+                }
+                assertSameGraph(ref, g);
+
+                LabeledGraph<Integer, Integer> lg = new LabeledGraph<>(g);
+                for (int[] e : g.edges()) {
+                    lg.setLabel(e[0], e[1], e[0] * 100 + e[1]);
+                }
+                for (int[] e : g.edges()) {
+                    assertEquals(Integer.valueOf(e[0] * 100 + e[1]),
+                                 lg.getLabel(e[0], e[1]));
+                }
+                assertSameGraph(g, g.freeze());
+            }
+        }
+        OffHeapGraph g = new OffHeapGraph(true);
+        g.close();
+        try {
+            g.add();
+            fail("closed graph used");
+        } catch (IllegalStateException excp) {
+            /* Expected. */
+        }
+    }
+
+    /** Tests saving graphs with GraphFile and mapping them back. */
+    @Test
+    public void testGraphFile() throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        String name = file.getPath();
+        LabelCodec<String, Integer> codec = new LabelCodec<>() {
+            @Override
+            public void writeVertexLabel(String lab, DataOutput out)
+                throws IOException {
+                out.writeUTF(lab);
+            }
+
+            @Override
+            public String readVertexLabel(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+
+            @Override
+            public void writeEdgeLabel(Integer lab, DataOutput out)
+                throws IOException {
+                out.writeInt(lab);
+            }
+
+            @Override
+            public Integer readEdgeLabel(DataInput in) throws IOException {
+                return in.readInt();
+            }
+
+            @Override
+            public String vertexKey(String lab) {
+                return lab.endsWith("7") ? null : lab;
+            }
+        };
+
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphObj g = directed ? new DirectedGraph() : new UndirectedGraph();
+            LabeledGraph<String, Integer> lg = new LabeledGraph<>(g);
+            for (int i = 1; i <= 40; i += 1) {
+                lg.add("v" + i);
+            }
+            for (int u = 1; u <= 40; u += 1) {
+                for (int v = u; v <= 40; v += u) {
+                    lg.add(v, u, u * 100 + v);
+                }
+            }
+            lg.remove(12);
+            lg.remove(14, 7);
+            lg.setLabel(3, null);
+            lg.setLabel(10, 5, null);
+
+            GraphFile.write(g, name);
+            Graph h = GraphFile.open(name);
+            assertSameGraph(g, h);
+            for (int[] e : g.edges()) {
+                assertEquals(g.edgeId(e[0], e[1]), h.edgeId(e[0], e[1]));
+            }
+
+            GraphFile.write(lg, name, codec);
+            assertTrue(GraphFile.isGraphFile(name));
+            LabeledGraph<String, Integer> lh = GraphFile.open(name, codec);
+            assertSameGraph(g, lh);
+            for (int v : g.vertices()) {
+                assertEquals(lg.getLabel(v), lh.getLabel(v));
+            }
+            for (int[] e : g.edges()) {
+                assertEquals(lg.getLabel(e[0], e[1]),
+                             lh.getLabel(e[0], e[1]));
+            }
+            assertNull(lh.getLabel(3));
+            assertNull(lh.getLabel(10, 5));
+            for (int v : g.vertices()) {
+                String lab = lg.getLabel(v);
+                if (lab != null && !lab.endsWith("7")) {
+                    assertEquals(v, lh.findVertex(lab));
+                }
+            }
+            assertEquals(0, lh.findVertex("v17"));
+            assertEquals(0, lh.findVertex("v12"));
+            assertEquals(0, lh.findVertex("w"));
+            assertEquals(0, lg.findVertex("v1"));
+            lh.setLabel(2, null);
+            lh.setLabel(4, 2, null);
+            lh.setLabel(5, "five");
+            assertNull(lh.getLabel(2));
+            assertNull(lh.getLabel(4, 2));
+            assertEquals("five", lh.getLabel(5));
+            assertEquals("v6", lh.getLabel(6));
+            try {
+                lh.add();
+                fail("mapped graph modified");
+            } catch (UnsupportedOperationException excp) {
+                /* Expected. */
+            }
+
+            LabeledGraph<String, Integer> frozen =
+                new LabeledGraph<>(g.freeze(), lg);
+            for (LabeledGraph<String, Integer> fixed : List.of(lh, frozen)) {
+                try {
+                    fixed.remove(6);
+                    fail("fixed graph modified");
+                } catch (UnsupportedOperationException excp) {
+                    /* Expected. */
+                }
+                assertEquals("v6", fixed.getLabel(6));
+                assertEquals(Integer.valueOf(306), fixed.getLabel(6, 3));
+                assertEquals(Integer.valueOf(630), fixed.getLabel(30, 6));
+            }
+        }
+    }
+
+    /** Tests IndexedHeap and the shortest paths found by setPaths against
+     *  Bellman-Ford on random weighted graphs. */
+    @Test
+    public void testShortestPaths() {
+        IndexedHeap heap = new IndexedHeap(100);
+        Random rand = new Random(3);
+        double[] keys = new double[100];
+        for (int v = 0; v < 100; v += 1) {
+            keys[v] = rand.nextInt(1000);
+            heap.insert(v, keys[v]);
+        }
+        for (int v = 0; v < 100; v += 3) {
+            keys[v] -= rand.nextInt(500);
+            heap.insertOrDecrease(v, keys[v]);
+        }
+        double last = Double.NEGATIVE_INFINITY;
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            assertTrue(keys[v] >= last);
+            assertFalse(heap.contains(v));
+            last = keys[v];
+        }
+
+        for (int trial = 0; trial < 20; trial += 1) {
+            double[][] w = new double[61][61];
+            Graph g = randomWeightedGraph(rand, w, 240, true,
+                                          (u, v) -> 1 + rand.nextInt(20));
+            int source = 1 + rand.nextInt(60);
+            double[] dist = new double[61];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            dist[source] = 0;
+            for (int i = 0; i < 60; i += 1) {
+                for (int[] e : g.edges()) {
+                    dist[e[1]] = Math.min(dist[e[1]],
+                                          dist[e[0]] + w[e[0]][e[1]]);
+                }
+            }
+            SimpleShortestPaths paths = dijkstra(g, w, source);
+            for (int v = 1; v <= 60; v += 1) {
+                assertEquals(dist[v], paths.getWeight(v), 1e-9);
+                if (v != source && dist[v] < Double.POSITIVE_INFINITY) {
+                    int u = paths.getPredecessor(v);
+                    assertEquals(dist[v], dist[u] + w[u][v], 1e-9);
+                } else if (v != source) {
+                    assertEquals(0, paths.getPredecessor(v));
+                }
+            }
+        }
+    }
+
+    /** Tests that memoized estimates are computed once per vertex and
+     *  do not change the paths found. */
+    @Test
+    public void testMemoizedEstimates() {
+        final int side = 12;
+        UndirectedGraph g = new UndirectedGraph();
+        for (int i = 0; i < side * side; i += 1) {
+            g.add();
+        }
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                int v = r * side + c + 1;
+                if (c + 1 < side) {
+                    g.add(v, v + 1);
+                }
+                if (r + 1 < side) {
+                    g.add(v, v + side);
+                }
+            }
+        }
+        final int dest = side * side;
+        int[] calls = new int[dest + 1];
+        double[] found = new double[2];
+        for (boolean memoize : new boolean[] { false, true }) {
+            Arrays.fill(calls, 0);
+            SimpleShortestPaths paths = new SimpleShortestPaths(g, 1, dest) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return 1 + (u + v) % 3;
+                }
+
+                @Override
+                protected double estimatedDistance(int v) {
+                    calls[v] += 1;
+                    int r = (v - 1) / side, c = (v - 1) % side;
+                    return (side - 1 - r) + (side - 1 - c);
+                }
+            };
+            paths.setMemoizeEstimates(memoize);
+            paths.setPaths();
+            found[memoize ? 1 : 0] = paths.getWeight(dest);
+            if (memoize) {
+                for (int v = 1; v <= dest; v += 1) {
+                    assertTrue(calls[v] <= 1);
+                }
+            }
+        }
+        assertEquals(found[0], found[1], 0.0);
+        assertTrue(found[0] >= 2 * (side - 1));
+    }
+
+    /** Tests that bidirectional searches find the same path lengths as
+     *  forward searches, with and without a (Euclidean) heuristic. */
+    @Test
+    public void testBidirectionalPaths() {
+        Random rand = new Random(4);
+        final int n = 80;
+        double[] x = new double[n + 1], y = new double[n + 1];
+        for (int v = 1; v <= n; v += 1) {
+            x[v] = rand.nextDouble() * 100;
+            y[v] = rand.nextDouble() * 100;
+        }
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomWeightedGraph(rand, w, 4 * n, true, (u, v) ->
+            Math.hypot(x[u] - x[v], y[u] - y[v]) * (1 + rand.nextDouble()));
+        for (int trial = 0; trial < 100; trial += 1) {
+            int source = 1 + rand.nextInt(n), dest = 1 + rand.nextInt(n);
+            boolean astar = trial % 2 == 0;
+            double[] found = new double[2];
+            for (int both = 0; both < 2; both += 1) {
+                SimpleShortestPaths paths =
+                    new SimpleShortestPaths(g, source, dest) {
+                        @Override
+                        protected double getWeight(int u, int v) {
+                            return w[u][v];
+                        }
+
+                        @Override
+                        protected double estimatedDistance(int v) {
+                            return astar ? Math.hypot(x[v] - x[dest],
+                                                      y[v] - y[dest]) : 0;
+                        }
+
+                        @Override
+                        protected double estimatedDistanceFromSource(int v) {
+                            return astar ? Math.hypot(x[v] - x[source],
+                                                      y[v] - y[source]) : 0;
+                        }
+                    };
+                paths.setBidirectional(both == 1);
+                paths.setPaths();
+                found[both] = paths.getWeight(dest);
+                if (found[both] < Double.POSITIVE_INFINITY) {
+                    double length;
+                    length = 0;
+                    List<Integer> path = paths.pathTo();
+                    assertEquals(source, (int) path.get(0));
+                    for (int i = 1; i < path.size(); i += 1) {
+                        assertTrue(g.contains(path.get(i - 1), path.get(i)));
+                        length += w[path.get(i - 1)][path.get(i)];
+                    }
+                    assertEquals(found[both], length, 1e-9);
+                }
+            }
+            assertEquals(found[0], found[1], 1e-9);
+        }
+    }
+
+    /** Tests contraction hierarchy queries, and saving and reading them,
+     *  against Dijkstra's algorithm. */
+    @Test
+    public void testContractionHierarchy() throws IOException {
+        Random rand = new Random(5);
+        File file = File.createTempFile("graph", ".ch");
+        file.deleteOnExit();
+        for (boolean directed : new boolean[] { true, false }) {
+            final int n = 150;
+            double[][] w = new double[n + 1][n + 1];
+            Graph g = randomWeightedGraph(rand, w, 3 * n, directed,
+                                          (u, v) -> 1 + rand.nextInt(10));
+            ContractionHierarchy built =
+                new ContractionHierarchy(g, (u, v) -> w[u][v]);
+            built.write(file.getPath());
+            ContractionHierarchy read =
+                ContractionHierarchy.read(file.getPath());
+            assertTrue(read.fits(g, (u, v) -> w[u][v]));
+            assertTrue(read.fits(g.freeze(), (u, v) -> w[u][v]));
+            assertFalse(read.fits(g, (u, v) -> w[u][v] + (u == 7 ? 1 : 0)));
+            Graph moved = directed ? new DirectedGraph()
+                : new UndirectedGraph();
+            for (int v = 1; v <= n; v += 1) {
+                moved.add();
+            }
+            for (int[] e : g.edges()) {
+                moved.add(e[0], e[1]);
+            }
+            int[] first = g.edges().next();
+            moved.remove(first[0], first[1]);
+            int u0;
+            for (u0 = 1; moved.contains(u0, n); u0 += 1) {
+                /* Find an absent edge (u0, n). */
+            }
+            moved.add(u0, n);
+            assertEquals(g.edgeSize(), moved.edgeSize());
+            assertFalse(read.fits(moved, (u, v) -> w[u][v]));
+            for (int trial = 0; trial < 50; trial += 1) {
+                int source = 1 + rand.nextInt(n), dest = 1 + rand.nextInt(n);
+                double expected = dijkstra(g, w, source).getWeight(dest);
+                for (ContractionHierarchy ch : List.of(built, read)) {
+                    assertEquals(expected, ch.distance(source, dest), 1e-9);
+                    List<Integer> path = ch.path(source, dest);
+                    if (expected == Double.POSITIVE_INFINITY) {
+                        assertNull(path);
+                        continue;
+                    }
+                    assertEquals(source, (int) path.get(0));
+                    assertEquals(dest, (int) path.get(path.size() - 1));
+                    double length;
+                    length = 0;
+                    for (int i = 1; i < path.size(); i += 1) {
+                        assertTrue(g.contains(path.get(i - 1), path.get(i)));
+                        length += w[path.get(i - 1)][path.get(i)];
+                    }
+                    assertEquals(expected, length, 1e-9);
+                }
+            }
+        }
+    }
+
+    /** Tests that landmark estimates are consistent lower bounds, that
+     *  they are exact for paths ending at landmarks, and that A* with them
+     *  finds shortest paths. */
+    @Test
+    public void testLandmarks() {
+        Random rand = new Random(6);
+        final int n = 60;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomWeightedGraph(rand, w, 4 * n, true,
+                                      (u, v) -> 0.5 + rand.nextInt(20));
+        double[][] dist = new double[n + 1][];
+        for (int s = 1; s <= n; s += 1) {
+            SimpleShortestPaths paths = dijkstra(g, w, s);
+            dist[s] = new double[n + 1];
+            for (int t = 1; t <= n; t += 1) {
+                dist[s][t] = paths.getWeight(t);
+            }
+        }
+        for (Landmarks.Selection sel : Landmarks.Selection.values()) {
+            Landmarks lm = new Landmarks(g, (u, v) -> w[u][v], 4, sel);
+            assertEquals(4, lm.size());
+            for (int s = 1; s <= n; s += 1) {
+                for (int t = 1; t <= n; t += 1) {
+                    assertTrue(lm.estimate(s, t) <= dist[s][t]);
+                }
+                int L = lm.landmark(0);
+                if (dist[s][L] < Double.POSITIVE_INFINITY) {
+                    assertEquals(dist[s][L], lm.estimate(s, L),
+                                 1e-5 * dist[s][L]);
+                }
+            }
+            for (int[] e : g.edges()) {
+                for (int t = 1; t <= n; t += 1) {
+                    if (dist[e[1]][t] < Double.POSITIVE_INFINITY) {
+                        assertTrue(lm.estimate(e[0], t)
+                                   <= w[e[0]][e[1]] + lm.estimate(e[1], t));
+                    }
+                }
+            }
+            for (int trial = 0; trial < 30; trial += 1) {
+                int s = 1 + rand.nextInt(n), t = 1 + rand.nextInt(n);
+                SimpleShortestPaths paths = new SimpleShortestPaths(g, s, t) {
+                    @Override
+                    protected double getWeight(int u, int v) {
+                        return w[u][v];
+                    }
+
+                    @Override
+                    protected double estimatedDistance(int v) {
+                        return lm.estimate(v, getDest());
+                    }
+                };
+                paths.setPaths();
+                assertEquals(dist[s][t], paths.getWeight(t), 1e-9);
+            }
+        }
+    }
+
+    /** Tests that searches sharing pooled workspaces give the same results
+     *  as a search keeping its own arrays, and that released workspaces
+     *  are reused. */
+    @Test
+    public void testSearchWorkspace() {
+        Random rand = new Random(8);
+        final int n = 70;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomWeightedGraph(rand, w, 2 * n, false,
+                                      (u, v) -> 1 + rand.nextInt(10));
+        for (int trial = 0; trial < 40; trial += 1) {
+            int s = 1 + rand.nextInt(n), t = rand.nextInt(n + 1);
+            double[] weights = new double[n + 1];
+            int[] preds = new int[n + 1];
+            ShortestPaths own = new ShortestPaths(g, s, t) {
+                @Override
+                public double getWeight(int v) {
+                    return weights[v];
+                }
+
+                @Override
+                protected void setWeight(int v, double x) {
+                    weights[v] = x;
+                }
+
+                @Override
+                public int getPredecessor(int v) {
+                    return preds[v];
+                }
+
+                @Override
+                protected void setPredecessor(int v, int u) {
+                    preds[v] = u;
+                }
+
+                @Override
+                protected double getWeight(int u, int v) {
+                    return w[u][v];
+                }
+            };
+            own.setPaths();
+            SimpleShortestPaths pooled = search(g, w, s, t);
+            pooled.setBidirectional(trial % 2 == 0);
+            pooled.setPaths();
+            pooled.setPaths();
+            if (t == 0) {
+                for (int v = 1; v <= n; v += 1) {
+                    assertEquals(weights[v], pooled.getWeight(v), 1e-9);
+                }
+            } else {
+                assertEquals(weights[t], pooled.getWeight(t), 1e-9);
+            }
+            own.release();
+            pooled.release();
+            assertEquals(Double.POSITIVE_INFINITY, pooled.getWeight(s), 0);
+        }
+        SearchWorkspace work = SearchWorkspace.borrow(g);
+        work.setWeight(3, 1.5);
+        work.release(g);
+        assertSame(work, SearchWorkspace.borrow(g));
+        assertEquals(Double.POSITIVE_INFINITY, work.weight(3), 0);
+        assertEquals(0, work.predecessor(3));
+    }
+
+    /** Tests that a distance matrix matches single-source searches, and
+     *  that its trees give paths of the right lengths. */
+    @Test
+    public void testDistanceMatrix() {
+        Random rand = new Random(7);
+        final int n = 80;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomWeightedGraph(rand, w, 3 * n, true,
+                                      (u, v) -> 1 + rand.nextInt(10));
+        int[] sources = { 3, 17, 3, 42, 80, 5, 61 };
+        int[] targets = { 9, 1, 77, 9, 33, 17, 50, 64, 2 };
+        DistanceMatrix dm = new DistanceMatrix(g, (u, v) -> w[u][v]);
+        dm.setKeepTrees(true);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        dm.setPool(pool);
+        double[][] table = dm.compute(sources, targets);
+        assertEquals(sources.length, table.length);
+        for (int i = 0; i < sources.length; i += 1) {
+            SimpleShortestPaths paths = dijkstra(g, w, sources[i]);
+            int[] tree = dm.predecessors(i);
+            for (int j = 0; j < targets.length; j += 1) {
+                double expected = paths.getWeight(targets[j]);
+                assertEquals(expected, table[i][j], 1e-9);
+                if (expected == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double length;
+                length = 0;
+                for (int v = targets[j]; v != sources[i]; v = tree[v]) {
+                    assertTrue(g.contains(tree[v], v));
+                    length += w[tree[v]][v];
+                }
+                assertEquals(expected, length, 1e-9);
+            }
+        }
+        dm.setKeepTrees(false);
+        assertArrayEquals(table[1], dm.compute(new int[] { 17 }, targets)[0],
+                          1e-9);
+        assertNull(dm.predecessors(0));
+        pool.shutdown();
+    }
+
+    /** Tests that delta-stepping finds the same weights as setPaths and a
+     *  valid tree of shortest paths, for several bucket widths (one far
+     *  smaller than the distances) and with zero-weight edges. */
+    @Test
+    public void testDeltaStepping() {
+        Random rand = new Random(9);
+        final int n = 3000;
+        DirectedGraph g = new DirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            g.add();
+        }
+        double[] weights = new double[8 * n];
+        for (int k = 0; k < 4 * n; k += 1) {
+            int u = 1 + rand.nextInt(n), v = 1 + rand.nextInt(n);
+            if (!g.contains(u, v)) {
+                g.add(u, v);
+                weights[g.edgeId(u, v)] = rand.nextInt(5) == 0
+                    ? 0 : rand.nextInt(100);
+            }
+        }
+        WeightFunction w = (u, v) -> weights[g.edgeId(u, v)];
+        SimpleShortestPaths expected = new SimpleShortestPaths(g, 1) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return w.weight(u, v);
+            }
+        };
+        expected.setPaths();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        for (double delta : new double[] { 1e-7, 1, 30, 1000 }) {
+            DeltaStepping search = new DeltaStepping(g, w, delta);
+            search.setPool(pool);
+            search.setPaths(1);
+            assertEquals(0, search.getPredecessor(1));
+            for (int v = 1; v <= n; v += 1) {
+                double d = expected.getWeight(v);
+                assertEquals(d, search.getWeight(v), 0);
+                int p = search.getPredecessor(v);
+                if (v != 1 && d < Double.POSITIVE_INFINITY) {
+                    assertTrue(g.contains(p, v));
+                    assertEquals(d, search.getWeight(p) + w.weight(p, v), 0);
+                } else {
+                    assertEquals(0, p);
+                }
+            }
+            for (int v = 2; v <= n; v += 1) {
+                if (search.getWeight(v) < Double.POSITIVE_INFINITY) {
+                    assertEquals(1, (int) search.pathTo(v).get(0));
+                }
+            }
+        }
+        pool.shutdown();
+    }
+
+    /** Tests that the k shortest loopless paths agree with a brute-force
+     *  enumeration of all loopless paths, and that the graph is left
+     *  unchanged. */
+    @Test
+    public void testKShortestPaths() {
+        Random rand = new Random(10);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        for (boolean directed : new boolean[] { true, false }) {
+            final int n = 9;
+            double[][] w = new double[n + 1][n + 1];
+            Graph g = randomWeightedGraph(rand, w, 22, directed,
+                                          (u, v) -> 1 + rand.nextInt(6));
+            int edges = g.edgeSize();
+            KShortestPaths ksp = new KShortestPaths(g, (u, v) -> w[u][v]);
+            ksp.setPool(pool);
+            for (int s = 1; s <= n; s += 1) {
+                int t = 1 + (s * 5) % n;
+                List<List<Integer>> all = new ArrayList<>();
+                allPaths(g, t, new ArrayList<>(List.of(s)), all);
+                all.sort((p, q) ->
+                         Double.compare(ksp.length(p), ksp.length(q)));
+                List<List<Integer>> found = ksp.paths(s, t, 12);
+                assertEquals(Math.min(12, all.size()), found.size());
+                for (int i = 0; i < found.size(); i += 1) {
+                    assertEquals(ksp.length(all.get(i)),
+                                 ksp.length(found.get(i)), 0);
+                    assertTrue(all.contains(found.get(i)));
+                    assertEquals(i, found.indexOf(found.get(i)));
+                }
+            }
+            assertEquals(edges, g.edgeSize());
+            assertEquals(n, g.vertexSize());
+        }
+        pool.shutdown();
+    }
+
+    /** Add to RESULT every loopless path in G to T that extends PATH. */
+    private static void allPaths(Graph g, int t, List<Integer> path,
+                                 List<List<Integer>> result) {
+        int v = path.get(path.size() - 1);
+        if (v == t) {
+            result.add(new ArrayList<>(path));
+            return;
+        }
+        for (int w : g.successors(v)) {
+            if (!path.contains(w)) {
+                path.add(w);
+                allPaths(g, t, path, result);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+
+    /** Tests that repairing shortest paths after batches of edge
+     *  insertions, removals, and weight changes gives the same weights as
+     *  recomputing them, with a consistent tree. */
+    @Test
+    public void testDynamicShortestPaths() {
+        Random rand = new Random(11);
+        final int n = 200;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomWeightedGraph(rand, w, 4 * n, true,
+                                      (u, v) -> 1 + rand.nextInt(20));
+        DynamicShortestPaths dyn =
+            new DynamicShortestPaths(g, (u, v) -> w[u][v], 1);
+        for (int batch = 0; batch < 30; batch += 1) {
+            for (int k = 0; k < 1 + rand.nextInt(6); k += 1) {
+                int u = 1 + rand.nextInt(n), v = 1 + rand.nextInt(n);
+                switch (rand.nextInt(3)) {
+                case 0:
+                    g.remove(u, v);
+                    break;
+                case 1:
+                    g.add(u, v);
+                    w[u][v] = rand.nextInt(20);
+                    break;
+                default:
+                    w[u][v] = rand.nextInt(40);
+                    break;
+                }
+                dyn.edgeChanged(u, v);
+            }
+            assertTrue(dyn.repair() <= n);
+            SimpleShortestPaths paths = dijkstra(g, w, 1);
+            for (int v = 1; v <= n; v += 1) {
+                double d = paths.getWeight(v);
+                assertEquals(d, dyn.getWeight(v), 0);
+                int p = dyn.getPredecessor(v);
+                if (v != 1 && d < Double.POSITIVE_INFINITY) {
+                    assertTrue(g.contains(p, v));
+                    assertEquals(d, dyn.getWeight(p) + w[p][v], 0);
+                } else {
+                    assertEquals(0, p);
+                }
+            }
+        }
+    }
+
+    /** Tests that a bounded search reaches exactly the vertices within its
+     *  bound, nearest first, with their weights. */
+    @Test
+    public void testBoundedSearch() {
+        Random rand = new Random(12);
+        final int n = 150;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomWeightedGraph(rand, w, 3 * n, true,
+                                      (u, v) -> 1 + rand.nextInt(10));
+        SimpleShortestPaths full = dijkstra(g, w, 7);
+        for (double bound : new double[] { 0, 5, 12.5, 1e9 }) {
+            SimpleShortestPaths paths = search(g, w, 7, 0);
+            paths.setBound(bound);
+            paths.setPaths();
+            int[] reached = paths.reachedVertices();
+            double[] weights = paths.reachedWeights();
+            assertEquals(reached.length, weights.length);
+            assertEquals(7, reached[0]);
+            int count;
+            count = 0;
+            for (int v = 1; v <= n; v += 1) {
+                double d = full.getWeight(v);
+                if (d <= bound) {
+                    count += 1;
+                    assertEquals(d, paths.getWeight(v), 0);
+                } else {
+                    assertEquals(Double.POSITIVE_INFINITY,
+                                 paths.getWeight(v), 0);
+                }
+            }
+            assertEquals(count, reached.length);
+            for (int i = 0; i < reached.length; i += 1) {
+                assertEquals(full.getWeight(reached[i]), weights[i], 0);
+                assertTrue(i == 0 || weights[i - 1] <= weights[i]);
+            }
+            paths.release();
+        }
+    }
+
+    /** Returns a new graph, directed iff DIRECTED, with vertices
+     *  1 .. W.length-1 and M edges (u, v) chosen at random by RAND (fewer
+     *  if some repeat), and set W[u][v] to WEIGHT.weight(u, v) for each
+     *  (and W[v][u] too, if undirected). */
+    private static Graph randomWeightedGraph(Random rand, double[][] w,
+                                             int m, boolean directed,
+                                             WeightFunction weight) {
+        int n = w.length - 1;
+        Graph g = directed ? new DirectedGraph() : new UndirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            g.add();
+        }
+        for (int k = 0; k < m; k += 1) {
+            int u = 1 + rand.nextInt(n), v = 1 + rand.nextInt(n);
+            g.add(u, v);
+            w[u][v] = weight.weight(u, v);
+            if (!directed) {
+                w[v][u] = w[u][v];
+            }
+        }
+        return g;
+    }
+
+    /** Returns a search of G from SOURCE to DEST (or to all vertices, if
+     *  DEST is 0) with edge weights W[u][v], not yet run. */
+    private static SimpleShortestPaths search(Graph g, double[][] w,
+                                              int source, int dest) {
+        return new SimpleShortestPaths(g, source, dest) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return w[u][v];
+            }
+        };
+    }
+
+    /** Returns the shortest paths in G from SOURCE to all vertices under
+     *  edge weights W[u][v], as found by Dijkstra's algorithm. */
+    private static SimpleShortestPaths dijkstra(Graph g, double[][] w,
+                                                int source) {
+        SimpleShortestPaths paths = search(g, w, source, 0);
+        paths.setPaths();
+        return paths;
+    }
+
+    /** Assert that EXPECTED and ACTUAL have the same vertices, edges,
+     *  and adjacencies. */
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.vertexSize(), actual.vertexSize());
+        assertEquals(expected.maxVertex(), actual.maxVertex());
+        assertEquals(expected.edgeSize(), actual.edgeSize());
+        assertEquals(sorted(expected.vertices()), sorted(actual.vertices()));
+        int n;
+        n = 0;
+        for (int[] e : actual.edges()) {
+            assertTrue(expected.contains(e[0], e[1]));
+            n += 1;
+        }
+        assertEquals(expected.edgeSize(), n);
+        for (int v : expected.vertices()) {
+            assertEquals(expected.outDegree(v), actual.outDegree(v));
+            assertEquals(expected.inDegree(v), actual.inDegree(v));
+            assertEquals(sorted(expected.successors(v)),
+                         sorted(actual.successors(v)));
+            assertEquals(sorted(expected.predecessors(v)),
+                         sorted(actual.predecessors(v)));
+        }
+    }
+
+    /** Returns the contents of IT in increasing order. */
+    private static ArrayList<Integer> sorted(Iterable<Integer> it) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int x : it) {
+            result.add(x);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
 }
@@ -0,0 +1,163 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A min-priority queue of vertices (ints in 0 .. capacity-1) with double
+ *  keys, supporting decrease-key.  It is a 4-ary heap stored in an int
+ *  array, with each vertex's position in the heap kept in a second array,
+ *  so that insert, poll, and decreaseKey take O(log V) time and contains
+ *  takes O(1), with no boxing.
+ *
+ *  @author Nicholas Moy.
+ */
+class IndexedHeap {
+
+    /** An empty heap for vertices 0 .. CAPACITY-1. */
+    IndexedHeap(int capacity) {
+        _heap = new int[capacity];
+        _keys = new double[capacity];
+        _pos = new int[capacity];
+        Arrays.fill(_pos, ABSENT);
+    }
+
+    /** Returns true iff I contain no vertices. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns the number of vertices in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff V is in me. */
+    boolean contains(int v) {
+        return _pos[v] != ABSENT;
+    }
+
+    /** Returns the key of V, which must be in me. */
+    double key(int v) {
+        return _keys[v];
+    }
+
+    /** Add V, which must not be in me, with key KEY. */
+    void insert(int v, double key) {
+        _keys[v] = key;
+        _pos[v] = _size;
+        _heap[_size] = v;
+        _size += 1;
+        siftUp(_size - 1);
+    }
+
+    /** Reduce the key of V, which must be in me, to KEY, which must be
+     *  no larger than its current key. */
+    void decreaseKey(int v, double key) {
+        _keys[v] = key;
+        siftUp(_pos[v]);
+    }
+
+    /** Add V with key KEY if it is absent, or else reduce its key to KEY
+     *  if that is smaller. */
+    void insertOrDecrease(int v, double key) {
+        if (!contains(v)) {
+            insert(v, key);
+        } else if (key < _keys[v]) {
+            decreaseKey(v, key);
+        }
+    }
+
+    /** Returns a vertex with the smallest key, which I must contain. */
+    int peek() {
+        return _heap[0];
+    }
+
+    /** Remove and return a vertex with the smallest key.  I must not be
+     *  empty. */
+    int poll() {
+        int v = _heap[0];
+        _pos[v] = ABSENT;
+        _size -= 1;
+        if (_size > 0) {
+            int last = _heap[_size];
+            _heap[0] = last;
+            _pos[last] = 0;
+            siftDown(0);
+        }
+        return v;
+    }
+
+    /** Remove all vertices from me. */
+    void clear() {
+        for (int i = 0; i < _size; i += 1) {
+            _pos[_heap[i]] = ABSENT;
+        }
+        _size = 0;
+    }
+
+    /** Restore the heap property by moving the vertex at position I
+     *  towards the root. */
+    private void siftUp(int i) {
+        int v = _heap[i];
+        double key = _keys[v];
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            int p = _heap[parent];
+            if (_keys[p] <= key) {
+                break;
+            }
+            _heap[i] = p;
+            _pos[p] = i;
+            i = parent;
+        }
+        _heap[i] = v;
+        _pos[v] = i;
+    }
+
+    /** Restore the heap property by moving the vertex at position I
+     *  towards the leaves. */
+    private void siftDown(int i) {
+        int v = _heap[i];
+        double key = _keys[v];
+        while (true) {
+            int first = ARITY * i + 1;
+            if (first >= _size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, _size);
+            int child = first;
+            double childKey = _keys[_heap[first]];
+            for (int c = first + 1; c < last; c += 1) {
+                double k = _keys[_heap[c]];
+                if (k < childKey) {
+                    child = c;
+                    childKey = k;
+                }
+            }
+            if (key <= childKey) {
+                break;
+            }
+            _heap[i] = _heap[child];
+            _pos[_heap[i]] = i;
+            i = child;
+        }
+        _heap[i] = v;
+        _pos[v] = i;
+    }
+
+    /** Number of children of each heap node. */
+    private static final int ARITY = 4;
+    /** Position of a vertex that is not in the heap. */
+    private static final int ABSENT = -1;
+
+    /** The heap, _heap[0 .. _size-1], with the children of position i at
+     *  ARITY * i + 1 .. ARITY * i + ARITY. */
+    private final int[] _heap;
+    /** Keys, indexed by vertex. */
+    private final double[] _keys;
+    /** Positions in _heap, indexed by vertex, or ABSENT. */
+    private final int[] _pos;
+    /** Number of vertices in the heap. */
+    private int _size;
+}
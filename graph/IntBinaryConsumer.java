@@ -0,0 +1,15 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** An operation on a pair of ints, such as the end points of an edge.  The
+ *  two-argument, unboxed counterpart of java.util.function.IntConsumer.
+ *  @author Nicholas Moy.
+ */
+@FunctionalInterface
+public interface IntBinaryConsumer {
+
+    /** Perform this operation on U and V. */
+    void accept(int u, int v);
+
+}
@@ -0,0 +1,84 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+/** An IntIteration is an iterator over ints that does not box its values.
+ *  It is the primitive counterpart of Iteration<Integer>, used like this:
+ *      IntIteration succ = G.successorsInt(v);
+ *      while (succ.hasNext()) {
+ *          int w = succ.nextInt();
+ *          ...
+ *      }
+ *  @author Nicholas Moy.
+ */
+public abstract class IntIteration implements PrimitiveIterator.OfInt {
+
+    @Override
+    public abstract boolean hasNext();
+
+    @Override
+    public abstract int nextInt();
+
+    /** An IntIteration over an array slice. */
+    private static class ArrayIteration extends IntIteration {
+        /** Iterate over A[FROM .. TO-1]. */
+        ArrayIteration(int[] a, int from, int to) {
+            _a = a;
+            _index = from;
+            _end = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _end;
+        }
+
+        @Override
+        public int nextInt() {
+            return _a[_index++];
+        }
+
+        /** The array iterated over. */
+        private final int[] _a;
+        /** Index of next value. */
+        private int _index;
+        /** Index just past the last value. */
+        private final int _end;
+    }
+
+    /** A wrapper class that turns an Iterator<Integer> into an
+     *  IntIteration. */
+    private static class BoxedIteration extends IntIteration {
+        /** ITER as an IntIteration. */
+        BoxedIteration(Iterator<Integer> iter) {
+            _iter = iter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _iter.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            return _iter.next();
+        }
+
+        /** The iterator with which I was constructed. */
+        private final Iterator<Integer> _iter;
+    }
+
+    /** Returns an IntIteration over A[FROM .. TO-1]. */
+    static IntIteration iteration(int[] a, int from, int to) {
+        return new ArrayIteration(a, from, to);
+    }
+
+    /** Returns an IntIteration that delegates to IT. */
+    static IntIteration iteration(Iterator<Integer> it) {
+        return new BoxedIteration(it);
+    }
+
+}
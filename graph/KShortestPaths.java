@@ -0,0 +1,419 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/** The k shortest loopless paths between two vertices, by Yen's algorithm
+ *  with Lawler's refinement.  Each new path is found among "spur" paths
+ *  that leave an earlier path at one of its vertices (no earlier than
+ *  that path's own point of deviation) and avoid both the part of it
+ *  already traversed and the edges by which earlier paths with the same
+ *  beginning left that vertex.  Rather than removing those vertices and
+ *  edges from the graph, each spur search runs on a masked view of it,
+ *  which leaves the graph untouched.  The spur searches for one path are
+ *  independent and run in parallel on a ForkJoinPool (by default the
+ *  common pool).  Each thread keeps one view and re-masks it for each of
+ *  its searches, so their workspaces (see ShortestPaths.release) are
+ *  reused from one search to the next.
+ *
+ *  The graph must not change during a call to paths, and the weight
+ *  function must be safe to call from several threads at once.
+ *
+ *  @author Nicholas Moy.
+ */
+public class KShortestPaths {
+
+    /** The k shortest paths in G, whose edge weights are given by
+     *  WEIGHTS. */
+    public KShortestPaths(Graph G, WeightFunction weights) {
+        _G = G;
+        _weights = weights;
+        _pool = ForkJoinPool.commonPool();
+        _views = ThreadLocal.withInitial(() -> new MaskedGraph(G));
+    }
+
+    /** Run spur searches on POOL. */
+    public void setPool(ForkJoinPool pool) {
+        _pool = pool;
+    }
+
+    /** Returns up to K shortest loopless paths from SOURCE to DEST, in
+     *  order of increasing length, each as a list of vertices from SOURCE
+     *  to DEST.  The list is shorter than K if there are fewer such paths.
+     *  Which of several equally long paths come first is unspecified,
+     *  but the same on every call. */
+    public List<List<Integer>> paths(int source, int dest, int k) {
+        List<Candidate> found = new ArrayList<>();
+        if (k <= 0 || !_G.contains(source) || !_G.contains(dest)) {
+            return new ArrayList<>();
+        }
+        Candidate first = spur(new int[] { source }, 0, 0.0, dest, found);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        Set<List<Integer>> seen = new HashSet<>();
+        if (first != null) {
+            candidates.add(first);
+            seen.add(first.asList());
+        }
+        while (found.size() < k && !candidates.isEmpty()) {
+            Candidate path = candidates.poll();
+            found.add(path);
+            if (found.size() == k) {
+                break;
+            }
+            for (Candidate c : spurs(path, dest, found)) {
+                if (c != null && seen.add(c.asList())) {
+                    candidates.add(c);
+                }
+            }
+        }
+        List<List<Integer>> result = new ArrayList<>();
+        for (Candidate c : found) {
+            result.add(c.asList());
+        }
+        return result;
+    }
+
+    /** Returns the length of PATH, a list of vertices joined by edges. */
+    public double length(List<Integer> path) {
+        double total = 0;
+        for (int i = 1; i < path.size(); i += 1) {
+            total += _weights.weight(path.get(i - 1), path.get(i));
+        }
+        return total;
+    }
+
+    /** Returns the candidates (or nulls, where there are none) formed by
+     *  spur searches to DEST from each vertex of PATH from its point of
+     *  deviation on, given the paths FOUND so far, computed in
+     *  parallel. */
+    private List<Candidate> spurs(Candidate path, int dest,
+                                  List<Candidate> found) {
+        int[] vertices = path._vertices;
+        double[] prefix = new double[vertices.length];
+        for (int i = 1; i < vertices.length; i += 1) {
+            prefix[i] = prefix[i - 1]
+                + _weights.weight(vertices[i - 1], vertices[i]);
+        }
+        List<Spur> tasks = new ArrayList<>();
+        for (int i = path._deviation; i < vertices.length - 1; i += 1) {
+            tasks.add(new Spur(vertices, i, prefix[i], dest, found));
+        }
+        if (tasks.size() == 1) {
+            tasks.get(0).compute();
+        } else if (tasks.size() > 1) {
+            _pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        List<Candidate> result = new ArrayList<>();
+        for (Spur task : tasks) {
+            result.add(task._result);
+        }
+        return result;
+    }
+
+    /** Returns the candidate formed by ROOT[0 .. I] followed by a shortest
+     *  path from ROOT[I] to DEST that avoids ROOT[0 .. I-1] and the edges
+     *  by which paths in FOUND that begin with ROOT[0 .. I] leave ROOT[I],
+     *  or null if there is none.  ROOTCOST is the length of
+     *  ROOT[0 .. I]. */
+    private Candidate spur(int[] root, int i, double rootCost, int dest,
+                           List<Candidate> found) {
+        MaskedGraph view = _views.get();
+        view.mask(root[i]);
+        for (int j = 0; j < i; j += 1) {
+            view.block(root[j]);
+        }
+        for (Candidate c : found) {
+            int[] p = c._vertices;
+            if (p.length > i + 1
+                && Arrays.equals(p, 0, i + 1, root, 0, i + 1)) {
+                view.blockEdge(p[i + 1]);
+            }
+        }
+
+        SimpleShortestPaths search =
+            new SimpleShortestPaths(view, root[i], dest) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return _weights.weight(u, v);
+                }
+            };
+        search.setBidirectional(true);
+        search.setPaths();
+        double cost = search.getWeight(dest);
+        List<Integer> tail =
+            cost == Double.POSITIVE_INFINITY ? null : search.pathTo(dest);
+        search.release();
+        if (tail == null) {
+            return null;
+        }
+        int[] vertices = Arrays.copyOf(root, i + tail.size());
+        for (int j = 1; j < tail.size(); j += 1) {
+            vertices[i + j] = tail.get(j);
+        }
+        return new Candidate(vertices, rootCost + cost, i);
+    }
+
+    /** A spur search, run as a task. */
+    private class Spur extends RecursiveAction {
+
+        /** A task computing spur(ROOT, I, ROOTCOST, DEST, FOUND). */
+        Spur(int[] root, int i, double rootCost, int dest,
+             List<Candidate> found) {
+            _root = root;
+            _i = i;
+            _rootCost = rootCost;
+            _dest = dest;
+            _found = found;
+        }
+
+        @Override
+        protected void compute() {
+            _result = spur(_root, _i, _rootCost, _dest, _found);
+        }
+
+        /** Path from which the spur leaves. */
+        private final int[] _root;
+        /** Index in _root of the spur vertex. */
+        private final int _i;
+        /** Length of _root[0 .. _i]. */
+        private final double _rootCost;
+        /** Destination. */
+        private final int _dest;
+        /** Paths found so far. */
+        private final List<Candidate> _found;
+        /** The result, or null. */
+        private Candidate _result;
+    }
+
+    /** A path with its length and point of deviation, ordered by length
+     *  and then by vertex sequence. */
+    private static class Candidate implements Comparable<Candidate> {
+
+        /** The path VERTICES, of length COST, which first leaves the path
+         *  it was derived from at VERTICES[DEVIATION]. */
+        Candidate(int[] vertices, double cost, int deviation) {
+            _vertices = vertices;
+            _cost = cost;
+            _deviation = deviation;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int c = Double.compare(_cost, other._cost);
+            return c != 0 ? c : Arrays.compare(_vertices, other._vertices);
+        }
+
+        /** Returns my vertices as a list. */
+        List<Integer> asList() {
+            List<Integer> result = new ArrayList<>(_vertices.length);
+            for (int v : _vertices) {
+                result.add(v);
+            }
+            return result;
+        }
+
+        /** The vertices. */
+        private final int[] _vertices;
+        /** The length. */
+        private final double _cost;
+        /** Index of the vertex at which I leave the path I came from. */
+        private final int _deviation;
+    }
+
+    /** A view of a graph without some of its vertices and without some of
+     *  the edges out of one vertex.  The masks are generation-stamped, so
+     *  re-masking takes constant time.  Only membership, adjacency, and
+     *  degrees reflect the masks; sizes are those of the underlying
+     *  graph. */
+    private static class MaskedGraph extends GraphFilter {
+
+        /** A view of G with nothing masked. */
+        MaskedGraph(Graph G) {
+            super(G);
+            _blocked = new int[G.maxVertex() + 1];
+            _edgeBlocked = new int[G.maxVertex() + 1];
+        }
+
+        /** Clear all masks, and prepare to block edges out of FROM. */
+        void mask(int from) {
+            int n = super.maxVertex() + 1;
+            if (n > _blocked.length || _gen == Integer.MAX_VALUE) {
+                _blocked = new int[n];
+                _edgeBlocked = new int[n];
+                _gen = 0;
+            }
+            _gen += 1;
+            _from = from;
+        }
+
+        /** Hide vertex V. */
+        void block(int v) {
+            _blocked[v] = _gen;
+        }
+
+        /** Hide the edge from the vertex given to mask to V. */
+        void blockEdge(int v) {
+            _edgeBlocked[v] = _gen;
+        }
+
+        /** Returns true iff the edge (U, V) is visible, given that U and V
+         *  are vertices. */
+        private boolean visible(int u, int v) {
+            return _blocked[u] != _gen && _blocked[v] != _gen
+                && (u != _from || _edgeBlocked[v] != _gen);
+        }
+
+        @Override
+        public boolean contains(int u) {
+            return super.contains(u) && _blocked[u] != _gen;
+        }
+
+        @Override
+        public boolean contains(int u, int v) {
+            return super.contains(u, v) && visible(u, v);
+        }
+
+        @Override
+        public int outDegree(int v) {
+            int[] count = new int[1];
+            forEachSuccessor(v, w -> count[0] += 1);
+            return count[0];
+        }
+
+        @Override
+        public int inDegree(int v) {
+            int[] count = new int[1];
+            forEachPredecessor(v, w -> count[0] += 1);
+            return count[0];
+        }
+
+        @Override
+        public void forEachSuccessor(int v, IntConsumer action) {
+            if (contains(v)) {
+                getGraph().forEachSuccessor(v, w -> {
+                    if (visible(v, w)) {
+                        action.accept(w);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void forEachPredecessor(int v, IntConsumer action) {
+            if (contains(v)) {
+                getGraph().forEachPredecessor(v, u -> {
+                    if (visible(u, v)) {
+                        action.accept(u);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public IntIteration successorsInt(int v) {
+            return new VisibleIteration(v, true);
+        }
+
+        @Override
+        public IntIteration predecessorsInt(int v) {
+            return new VisibleIteration(v, false);
+        }
+
+        @Override
+        public Iteration<Integer> successors(int v) {
+            return Iteration.iteration(successorsInt(v));
+        }
+
+        @Override
+        public Iteration<Integer> predecessors(int v) {
+            return Iteration.iteration(predecessorsInt(v));
+        }
+
+        /** _blocked[v] == _gen iff v is hidden. */
+        private int[] _blocked;
+        /** _edgeBlocked[v] == _gen iff the edge (_from, v) is hidden. */
+        private int[] _edgeBlocked;
+        /** Current generation of the masks. */
+        private int _gen;
+        /** The vertex whose out-edges may be hidden. */
+        private int _from;
+
+        /** Iteration over the visible neighbors of a vertex, filtering
+         *  those of the underlying graph as it goes. */
+        private class VisibleIteration extends IntIteration {
+
+            /** Iterate over the visible successors of V if OUT, and
+             *  otherwise over its visible predecessors. */
+            VisibleIteration(int v, boolean out) {
+                _v = v;
+                _isOut = out;
+                if (!contains(v)) {
+                    _all = IntIteration.iteration(new int[0], 0, 0);
+                } else if (out) {
+                    _all = getGraph().successorsInt(v);
+                } else {
+                    _all = getGraph().predecessorsInt(v);
+                }
+                toNext();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return _hasNext;
+            }
+
+            @Override
+            public int nextInt() {
+                int w = _next;
+                toNext();
+                return w;
+            }
+
+            /** Find the next visible neighbor, if any, in _next. */
+            private void toNext() {
+                while (_all.hasNext()) {
+                    _next = _all.nextInt();
+                    if (_isOut ? visible(_v, _next) : visible(_next, _v)) {
+                        _hasNext = true;
+                        return;
+                    }
+                }
+                _hasNext = false;
+            }
+
+            /** The vertex whose neighbors I iterate over. */
+            private final int _v;
+            /** True iff the neighbors are successors. */
+            private final boolean _isOut;
+            /** All of _v's neighbors in the underlying graph. */
+            private final IntIteration _all;
+            /** The next visible neighbor, if _hasNext. */
+            private int _next;
+            /** True iff there is another visible neighbor. */
+            private boolean _hasNext;
+        }
+    }
+
+    /** The graph. */
+    private final Graph _G;
+    /** Its edge weights. */
+    private final WeightFunction _weights;
+    /** Pool on which spur searches run. */
+    private ForkJoinPool _pool;
+    /** Each thread's view of _G. */
+    private final ThreadLocal<MaskedGraph> _views;
+}
@@ -0,0 +1,40 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/** Converts the vertex labels (of type VL) and edge labels (of type EL) of
+ *  a LabeledGraph to and from bytes, so that GraphFile can save them along
+ *  with the graph.  The read methods must consume exactly the bytes
+ *  written by the corresponding write methods.  Null labels are handled by
+ *  GraphFile and are never passed to a codec.  A codec may also give
+ *  vertex labels keys (such as names), under which GraphFile indexes the
+ *  vertices of the file so that they can be found without reading all the
+ *  labels (see LabeledGraph.findVertex).
+ *
+ *  @author Nicholas Moy.
+ */
+public interface LabelCodec<VL, EL> {
+
+    /** Write vertex label LAB to OUT. */
+    void writeVertexLabel(VL lab, DataOutput out) throws IOException;
+
+    /** Returns a vertex label read from IN. */
+    VL readVertexLabel(DataInput in) throws IOException;
+
+    /** Write edge label LAB to OUT. */
+    void writeEdgeLabel(EL lab, DataOutput out) throws IOException;
+
+    /** Returns an edge label read from IN. */
+    EL readEdgeLabel(DataInput in) throws IOException;
+
+    /** Returns the key of vertex label LAB, or null if its vertex is not
+     *  to be indexed.  By default, no vertex is indexed. */
+    default String vertexKey(VL lab) {
+        return null;
+    }
+
+}
@@ -3,9 +3,12 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
+import java.util.function.IntConsumer;
 
 /** A Graph whose vertices are labeled with type VL and whose edges are
- *  labeled with type EL.
+ *  labeled with type EL.  Its vertices and edges are those of the graph it
+ *  labels, so it passes the unboxed iterations and visitors straight
+ *  through.
  *  @author P. N. Hilfinger
  */
 public class LabeledGraph<VL, EL> extends GraphFilter {
@@ -15,14 +18,34 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
      *  G have undefined effects upon the labeled version created by this
      *  constructor. */
     public LabeledGraph(Graph G) {
+        this(G, (SavedLabels<VL, EL>) null);
+    }
+
+    /** A labeling of the graph G with the labels currently in LABELS.
+     *  G must have the same vertices and edge ids as LABELS, as is the
+     *  case when G is LABELS.freeze(). */
+    public LabeledGraph(Graph G, LabeledGraph<VL, EL> labels) {
+        this(G, labels._saved);
+        _vlabel.addAll(labels._vlabel);
+        _elabel.addAll(labels._elabel);
+    }
+
+    /** A labeling of the graph G whose labels, until set, are those in
+     *  SAVED (if non-null), read from a graph file as needed. */
+    LabeledGraph(Graph G, SavedLabels<VL, EL> saved) {
         super(G);
+        _saved = saved;
     }
 
     /** Returns the label on vertex V, which must be one of my
      *  vertices. */
     public VL getLabel(int v) {
         checkMyVertex(v);
-        return v < _vlabel.size() ? _vlabel.get(v) : null;
+        Object lab = v < _vlabel.size() ? _vlabel.get(v) : null;
+        if (lab == null && _saved != null) {
+            return _saved.vertexLabel(v);
+        }
+        return lab == CLEARED ? null : _vlabel.get(v);
     }
 
     /** Returns the label on the edge (U, V), which must be one of
@@ -32,14 +55,63 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         if (e == 0) {
             throw new IllegalArgumentException("no such edge");
         }
-        return e < _elabel.size() ? _elabel.get(e) : null;
+        Object lab = e < _elabel.size() ? _elabel.get(e) : null;
+        if (lab == null && _saved != null) {
+            return _saved.edgeLabel(e);
+        }
+        return lab == CLEARED ? null : _elabel.get(e);
+    }
+
+    /** Returns a vertex whose label has key KEY, as given by the
+     *  LabelCodec with which I was read from a graph file, or 0 if there is
+     *  none.  Only the index saved in the file is consulted, so this
+     *  returns 0 if I was not read from a file, and does not see labels
+     *  set since. */
+    public int findVertex(String key) {
+        return _saved == null ? 0 : _saved.find(key);
+    }
+
+    @Override
+    protected int modCount() {
+        return getGraph().modCount();
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return getGraph().verticesInt();
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        return getGraph().successorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        return getGraph().predecessorsInt(v);
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        getGraph().forEachSuccessor(v, action);
+    }
+
+    @Override
+    public void forEachPredecessor(int v, IntConsumer action) {
+        getGraph().forEachPredecessor(v, action);
+    }
+
+    @Override
+    public void forEachEdge(IntBinaryConsumer action) {
+        getGraph().forEachEdge(action);
     }
 
     /** Return the successor of vertex U along the edge labeled LAB, if any,
      *  and otherwise 0. Assumes LAB is not null. If multiple edges have the
      *  label EL, returns an arbitrary one of them. */
     public int getSuccessor(int u, EL lab) {
-        for (int v : successors(u)) {
+        for (IntIteration succ = successorsInt(u); succ.hasNext(); ) {
+            int v = succ.nextInt();
             if (lab.equals(getLabel(u, v))) {
                 return v;
             }
@@ -50,9 +122,9 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
     /** Set getVertexLabel(V) to LAB.  V must be one of my vertices. */
     public void setLabel(int v, VL lab) {
         checkMyVertex(v);
-        if (lab != null || v < _vlabel.size()) {
+        if (lab != null || v < _vlabel.size() || _saved != null) {
             expand(_vlabel, v + 1);
-            _vlabel.set(v, lab);
+            _vlabel.set(v, lab == null ? cleared() : lab);
         }
     }
 
@@ -62,9 +134,9 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         if (e == 0) {
             throw new IllegalArgumentException("no such edge");
         }
-        if (lab != null || e < _elabel.size()) {
+        if (lab != null || e < _elabel.size() || _saved != null) {
             expand(_elabel, e + 1);
-            _elabel.set(e, lab);
+            _elabel.set(e, lab == null ? cleared() : lab);
         }
     }
 
@@ -91,9 +163,22 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
 
     @Override
     public void remove(int v) {
+        ArrayList<Integer> edges = new ArrayList<>();
+        if (contains(v)) {
+            for (int w : successors(v)) {
+                edges.add(edgeId(v, w));
+            }
+            for (int w : predecessors(v)) {
+                edges.add(edgeId(w, v));
+            }
+        }
         super.remove(v);
-        if (v < _vlabel.size()) {
-            _vlabel.set(v, null);
+        for (int e : edges) {
+            clearLabel(e);
+        }
+        if (v < _vlabel.size() || _saved != null) {
+            expand(_vlabel, v + 1);
+            _vlabel.set(v, cleared());
         }
     }
 
@@ -102,12 +187,27 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         int e = edgeId(u, v);
         if (e != 0) {
             super.remove(u, v);
-            if (e < _elabel.size()) {
-                _elabel.set(e, null);
-            }
+            clearLabel(e);
         }
     }
 
+    /** Remove the label, if any, of the edge whose id is E.  Edge ids may
+     *  be reused once their edges are removed, so labels of removed edges,
+     *  saved ones included, must not linger. */
+    private void clearLabel(int e) {
+        if (e < _elabel.size() || _saved != null) {
+            expand(_elabel, e + 1);
+            _elabel.set(e, cleared());
+        }
+    }
+
+    /** Returns the entry of _vlabel or _elabel for a label set to null:
+     *  null, unless there are saved labels, which it must then hide. */
+    @SuppressWarnings("unchecked")
+    private <T> T cleared() {
+        return _saved == null ? null : (T) CLEARED;
+    }
+
     /** If necessary, add nulls to L to make its length N.  Has no effect if
      *  L's length is already at least N. */
     static void expand(ArrayList<?> L, int n) {
@@ -116,8 +216,14 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         }
     }
 
+    /** Marks a label set to null in place of a saved one. */
+    private static final Object CLEARED = new Object();
+
     /** Mapping of vertex numbers to vertex labels. */
     private final ArrayList<VL> _vlabel = new ArrayList<>();
     /** Mapping of unique edge ids to edge labels. */
     private final ArrayList<EL> _elabel = new ArrayList<>();
+    /** Labels read from a graph file, used where none have been set, or
+     *  null. */
+    private final SavedLabels<VL, EL> _saved;
 }
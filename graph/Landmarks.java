@@ -0,0 +1,275 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Lower bounds on shortest-path distances from the triangle inequality
+ *  and a few precomputed "landmark" vertices (the ALT technique: A*,
+ *  landmarks, triangle inequality).  For every vertex v and landmark L, I
+ *  keep d(L, v) and d(v, L), so that for any vertices v and t,
+ *      d(v, t) >= d(L, t) - d(L, v)  and  d(v, t) >= d(v, L) - d(t, L).
+ *  The largest of these bounds is a consistent estimate, and is usually
+ *  much tighter than straight-line distance on road networks.  A
+ *  ShortestPaths subclass uses it by defining
+ *      protected double estimatedDistance(int v) {
+ *          return landmarks.estimate(v, getDest());
+ *      }
+ *  The tables hold floats to halve their size.  The searches that fill
+ *  them round each distance down to a float as they go, so the stored
+ *  distances are lower bounds that still satisfy the triangle inequality
+ *  across every edge, and each bound, and so the estimate, stays
+ *  consistent.  (The one exception is harmless: an infinite bound, which
+ *  means that t cannot be reached, is reported as 0.)
+ *
+ *  @author Nicholas Moy.
+ */
+public class Landmarks {
+
+    /** Ways of choosing landmarks. */
+    public enum Selection {
+        /** Each landmark is the vertex farthest from those already
+         *  chosen. */
+        FARTHEST,
+        /** Each landmark is the leaf of the part of a shortest-path tree
+         *  where the existing landmarks give the worst bounds ("avoid"
+         *  selection, after Goldberg and Werneck). */
+        AVOID
+    }
+
+    /** Landmarks for G, whose edge weights are given by WEIGHTS: K of
+     *  them (or all the vertices, if fewer), chosen by FARTHEST
+     *  selection. */
+    public Landmarks(Graph G, WeightFunction weights, int k) {
+        this(G, weights, k, Selection.FARTHEST);
+    }
+
+    /** Landmarks for G, whose edge weights are given by WEIGHTS: K of
+     *  them (or all the vertices, if fewer), chosen by SELECTION. */
+    public Landmarks(Graph G, WeightFunction weights, int k,
+                     Selection selection) {
+        _G = G;
+        _weights = weights;
+        _n = G.maxVertex() + 1;
+        k = Math.min(k, G.vertexSize());
+        _landmarks = new int[k];
+        _from = new float[k * _n];
+        _to = new float[k * _n];
+        _heap = new IndexedHeap(_n);
+        _dist = new double[_n];
+        _parent = new int[_n];
+        _order = new int[_n];
+
+        Random rand = new Random(SEED);
+        for (int i = 0; i < k; i += 1) {
+            int L = selection == Selection.AVOID
+                ? avoid(i, randomVertex(rand)) : farthest(i, rand);
+            _landmarks[i] = L;
+            dijkstra(L, true);
+            for (int v = 0; v < _n; v += 1) {
+                _from[v * k + i] = (float) _dist[v];
+            }
+            dijkstra(L, false);
+            for (int v = 0; v < _n; v += 1) {
+                _to[v * k + i] = (float) _dist[v];
+            }
+            _count = i + 1;
+        }
+        _dist = null;
+        _parent = _order = null;
+        _heap = null;
+    }
+
+    /** Returns the number of landmarks. */
+    public int size() {
+        return _landmarks.length;
+    }
+
+    /** Returns landmark number I, 0 <= I < size(). */
+    public int landmark(int i) {
+        return _landmarks[i];
+    }
+
+    /** Returns a lower bound on the length of a shortest path from V to
+     *  T, or 0 if none is known. */
+    public double estimate(int v, int t) {
+        if (v <= 0 || v >= _n || t <= 0 || t >= _n) {
+            return 0.0;
+        }
+        int k = _landmarks.length;
+        double best;
+        best = 0.0;
+        for (int i = 0, p = v * k, q = t * k; i < _count; i += 1, p += 1,
+                 q += 1) {
+            best = Math.max(best, bound(_from[q], _from[p]));
+            best = Math.max(best, bound(_to[p], _to[q]));
+        }
+        return best;
+    }
+
+    /** Returns A - B, or 0 if that is not a positive finite value. */
+    private static double bound(float a, float b) {
+        double d = (double) a - b;
+        return d > 0 && d != Double.POSITIVE_INFINITY ? d : 0.0;
+    }
+
+    /** Returns the largest float that is at most X. */
+    private static float roundDown(double x) {
+        float f = (float) x;
+        return f > x ? Math.nextDown(f) : f;
+    }
+
+    /** Returns landmark number I, chosen as the vertex whose round-trip
+     *  distance to the nearest existing landmark is largest, using RAND
+     *  to choose where to start. */
+    private int farthest(int i, Random rand) {
+        if (i == 0) {
+            dijkstra(randomVertex(rand), true);
+            return farthestReached();
+        }
+        int k = _landmarks.length;
+        double bestDist = -1;
+        int best;
+        best = 0;
+        for (IntIteration verts = _G.verticesInt(); verts.hasNext(); ) {
+            int v = verts.nextInt();
+            double near = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < i; j += 1) {
+                near = Math.min(near, (double) _from[v * k + j]
+                                + _to[v * k + j]);
+            }
+            if (near > bestDist) {
+                bestDist = near;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the vertex reached by the last dijkstra with the largest
+     *  finite distance. */
+    private int farthestReached() {
+        int best = _order[0];
+        for (int j = 0; j < _reached; j += 1) {
+            if (_dist[_order[j]] > _dist[best]) {
+                best = _order[j];
+            }
+        }
+        return best;
+    }
+
+    /** Returns landmark number I, chosen by avoid selection from a
+     *  shortest-path tree rooted at ROOT. */
+    private int avoid(int i, int root) {
+        dijkstra(root, true);
+        double[] size = new double[_n];
+        boolean[] covered = new boolean[_n];
+        int[] bestChild = new int[_n];
+        for (int j = 0; j < i; j += 1) {
+            covered[_landmarks[j]] = true;
+        }
+        for (int j = _reached - 1; j >= 0; j -= 1) {
+            int v = _order[j];
+            if (!covered[v]) {
+                size[v] += _dist[v] - estimate(root, v);
+            } else {
+                size[v] = 0;
+            }
+            int p = _parent[v];
+            if (p != 0) {
+                if (covered[v]) {
+                    covered[p] = true;
+                }
+                size[p] += size[v];
+                if (bestChild[p] == 0 || size[v] > size[bestChild[p]]) {
+                    bestChild[p] = v;
+                }
+            }
+        }
+        int v = root;
+        while (bestChild[v] != 0 && size[bestChild[v]] > 0) {
+            v = bestChild[v];
+        }
+        if (v == root && covered[root]) {
+            return farthestReached();
+        }
+        return v;
+    }
+
+    /** Returns a vertex of _G chosen using RAND. */
+    private int randomVertex(Random rand) {
+        int v;
+        do {
+            v = 1 + rand.nextInt(_n - 1);
+        } while (!_G.contains(v));
+        return v;
+    }
+
+    /** Set _dist to the distances from S (if FORWARD) or to S (otherwise),
+     *  _parent to the tree of shortest paths, and _order[0 .. _reached-1]
+     *  to the vertices reached, in order of distance.  Each distance is
+     *  rounded down to a float when it is found, so that _dist[w] <=
+     *  _dist[v] + the weight of (v, w) for each edge (or of (w, v), if not
+     *  FORWARD) in the rounded distances too. */
+    private void dijkstra(int s, boolean forward) {
+        Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(_parent, 0);
+        _reached = 0;
+        _dist[s] = 0;
+        _heap.insert(s, 0);
+        while (!_heap.isEmpty()) {
+            int v = _heap.poll();
+            _order[_reached] = v;
+            _reached += 1;
+            double d = _dist[v];
+            if (forward) {
+                _G.forEachSuccessor(v, w ->
+                    relax(v, w, roundDown(d + _weights.weight(v, w))));
+            } else {
+                _G.forEachPredecessor(v, w ->
+                    relax(v, w, roundDown(d + _weights.weight(w, v))));
+            }
+        }
+    }
+
+    /** Record that W is at distance D through V, if that is shorter than
+     *  its current distance. */
+    private void relax(int v, int w, double d) {
+        if (d < _dist[w]) {
+            _dist[w] = d;
+            _parent[w] = v;
+            _heap.insertOrDecrease(w, d);
+        }
+    }
+
+    /** Seed for random choices, so that landmarks are reproducible. */
+    private static final long SEED = 61;
+
+    /** The graph. */
+    private final Graph _G;
+    /** Its edge weights. */
+    private final WeightFunction _weights;
+    /** One more than the largest vertex. */
+    private final int _n;
+    /** The landmarks. */
+    private final int[] _landmarks;
+    /** _from[v * size() + i] is the distance from landmark i to v. */
+    private final float[] _from;
+    /** _to[v * size() + i] is the distance from v to landmark i. */
+    private final float[] _to;
+    /** Number of landmarks whose tables are complete (less than size()
+     *  only during construction). */
+    private int _count;
+
+    /** Construction workspace: Dijkstra fringe. */
+    private IndexedHeap _heap;
+    /** Construction workspace: Dijkstra distances. */
+    private double[] _dist;
+    /** Construction workspace: Dijkstra tree parents. */
+    private int[] _parent;
+    /** Construction workspace: vertices in order reached. */
+    private int[] _order;
+    /** Construction workspace: number of vertices reached. */
+    private int _reached;
+}
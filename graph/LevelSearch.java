@@ -0,0 +1,261 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/** A level-synchronous parallel breadth-first search with direction
+ *  optimization (Beamer, Asanovic, and Patterson).  The frontier, the next
+ *  frontier, and the set of visited vertices are bitsets held in
+ *  AtomicLongArrays.  Each level is found in one of two ways, in parallel
+ *  over ranges of the bitsets:
+ *  <ul>
+ *  <li> top-down: each vertex of the frontier claims its unvisited
+ *       successors, with a compare-and-set on the visited bits;
+ *  <li> bottom-up: each unvisited vertex looks through its predecessors
+ *       for one in the frontier, and stops at the first it finds.
+ *  </ul>
+ *  Top-down is cheaper while the frontier is small; bottom-up, once the
+ *  edges out of the frontier are a large part (1/ALPHA) of those not yet
+ *  examined, until the frontier shrinks below 1/BETA of the vertices.
+ *  The results are each reached vertex's distance in edges from the
+ *  source and its parent in a tree of shortest such paths.
+ *
+ *  The graph must not change during a search, and so should be frozen.
+ *
+ *  @author Nicholas Moy.
+ */
+final class LevelSearch {
+
+    /** A search of G, which should be frozen.  It may be run any number
+     *  of times. */
+    LevelSearch(Graph G) {
+        _G = G;
+        int n = G.maxVertex() + 1, words = (n + WORD - 1) / WORD;
+        _dist = new int[n];
+        _parents = new int[n];
+        _visited = new AtomicLongArray(words);
+        _frontier = new AtomicLongArray(words);
+        _next = new AtomicLongArray(words);
+    }
+
+    /** Search from SOURCE, finding each level on POOL.  If LEVELS is
+     *  non-null, then after each level is found, LEVELS is given its
+     *  vertices in increasing order (the first is { SOURCE }), and the
+     *  search stops if it returns false. */
+    void run(int source, ForkJoinPool pool, Predicate<int[]> levels) {
+        Arrays.fill(_dist, -1);
+        Arrays.fill(_parents, 0);
+        clear(_visited);
+        clear(_frontier);
+        clear(_next);
+        _bottomUpLevels = 0;
+        if (!_G.contains(source)) {
+            return;
+        }
+        _dist[source] = 0;
+        insert(_visited, source);
+        insert(_frontier, source);
+        long unexplored = _G.isDirected() ? _G.edgeSize()
+            : 2L * _G.edgeSize();
+        long frontierSize = 1, frontierEdges = _G.outDegree(source);
+        boolean topDown = true;
+        for (int level = 0; frontierSize > 0; level += 1) {
+            if (levels != null
+                && !levels.test(members(_frontier, frontierSize))) {
+                return;
+            }
+            if (topDown && frontierEdges > unexplored / ALPHA) {
+                topDown = false;
+            } else if (!topDown && frontierSize < _dist.length / BETA) {
+                topDown = true;
+            }
+            unexplored -= frontierEdges;
+            _found.reset();
+            _foundEdges.reset();
+            _level = level + 1;
+            _topDown = topDown;
+            if (!topDown) {
+                _bottomUpLevels += 1;
+            }
+            pool.invoke(new Step(0, _frontier.length()));
+            frontierSize = _found.sum();
+            frontierEdges = _foundEdges.sum();
+            AtomicLongArray t = _frontier;
+            _frontier = _next;
+            _next = t;
+            clear(_next);
+        }
+    }
+
+    /** Returns the distances in edges from the source of the last search,
+     *  indexed by vertex, with -1 for vertices not reached. */
+    int[] distances() {
+        return _dist;
+    }
+
+    /** Returns the parents of the last search, indexed by vertex, with 0
+     *  for the source and for vertices not reached. */
+    int[] parents() {
+        return _parents;
+    }
+
+    /** Returns the number of levels of the last search found
+     *  bottom-up. */
+    int bottomUpLevels() {
+        return _bottomUpLevels;
+    }
+
+    /** Returns the SIZE members of BITS in increasing order. */
+    private static int[] members(AtomicLongArray bits, long size) {
+        int[] result = new int[(int) size];
+        int k;
+        k = 0;
+        for (int w = 0; w < bits.length(); w += 1) {
+            for (long word = bits.get(w); word != 0; word &= word - 1) {
+                result[k] = w * WORD + Long.numberOfTrailingZeros(word);
+                k += 1;
+            }
+        }
+        return result;
+    }
+
+    /** Remove everything from BITS. */
+    private static void clear(AtomicLongArray bits) {
+        for (int w = 0; w < bits.length(); w += 1) {
+            bits.set(w, 0L);
+        }
+    }
+
+    /** Returns true iff V is in BITS. */
+    private static boolean member(AtomicLongArray bits, int v) {
+        return (bits.get(v / WORD) & (1L << v)) != 0;
+    }
+
+    /** Add V to BITS.  Returns true iff it was not already there. */
+    private static boolean insert(AtomicLongArray bits, int v) {
+        int w = v / WORD;
+        long bit = 1L << v;
+        while (true) {
+            long old = bits.get(w);
+            if ((old & bit) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(w, old, old | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /** Record that V, found at the current level, has parent U. */
+    private void found(int u, int v) {
+        _dist[v] = _level;
+        _parents[v] = u;
+        insert(_next, v);
+        _found.increment();
+        _foundEdges.add(_G.outDegree(v));
+    }
+
+    /** Finds the part of the next level in one range of words of the
+     *  bitsets. */
+    private class Step extends RecursiveAction {
+
+        /** Find the vertices of the next level that are reached from, or
+         *  (bottom-up) that lie in, words LO .. HI-1 of the bitsets. */
+        Step(int lo, int hi) {
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > GRAIN) {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(new Step(_lo, mid), new Step(mid, _hi));
+            } else if (_topDown) {
+                topDown();
+            } else {
+                bottomUp();
+            }
+        }
+
+        /** Claim the unvisited successors of the frontier vertices in my
+         *  range. */
+        private void topDown() {
+            for (int w = _lo; w < _hi; w += 1) {
+                for (long word = _frontier.get(w); word != 0;
+                     word &= word - 1) {
+                    int u = w * WORD + Long.numberOfTrailingZeros(word);
+                    _G.forEachSuccessor(u, v -> {
+                        if (insert(_visited, v)) {
+                            found(u, v);
+                        }
+                    });
+                }
+            }
+        }
+
+        /** Find a parent in the frontier for each unvisited vertex in my
+         *  range. */
+        private void bottomUp() {
+            int end = Math.min(_hi * WORD, _dist.length);
+            for (int v = Math.max(_lo * WORD, 1); v < end; v += 1) {
+                if (member(_visited, v) || !_G.contains(v)) {
+                    continue;
+                }
+                IntIteration preds = _G.predecessorsInt(v);
+                while (preds.hasNext()) {
+                    int u = preds.nextInt();
+                    if (member(_frontier, u)) {
+                        insert(_visited, v);
+                        found(u, v);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /** The range of words. */
+        private final int _lo, _hi;
+    }
+
+    /** Bits per word of a bitset. */
+    private static final int WORD = 64;
+    /** Number of words of the bitsets handled by one task. */
+    private static final int GRAIN = 256;
+    /** Go bottom-up once the edges out of the frontier exceed
+     *  1/ALPHA of those unexamined. */
+    private static final int ALPHA = 14;
+    /** Go top-down again once the frontier holds fewer than 1/BETA of the
+     *  vertices. */
+    private static final int BETA = 24;
+
+    /** The graph. */
+    private final Graph _G;
+    /** Distances in edges, indexed by vertex, or -1. */
+    private final int[] _dist;
+    /** Parents, indexed by vertex, or 0. */
+    private final int[] _parents;
+    /** Vertices reached so far. */
+    private final AtomicLongArray _visited;
+    /** The current level. */
+    private AtomicLongArray _frontier;
+    /** The level being found. */
+    private AtomicLongArray _next;
+    /** Number of the level being found. */
+    private int _level;
+    /** True iff the level being found is found top-down. */
+    private boolean _topDown;
+    /** Number of levels found bottom-up in the last search. */
+    private int _bottomUpLevels;
+    /** Number of vertices found in the level being found. */
+    private final LongAdder _found = new LongAdder();
+    /** Sum of the out-degrees of the vertices found in the level being
+     *  found. */
+    private final LongAdder _foundEdges = new LongAdder();
+}
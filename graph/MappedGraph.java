@@ -0,0 +1,385 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.function.IntConsumer;
+
+/** A read-only Graph stored in compressed-sparse-row form (as for
+ *  FrozenGraph) in a buffer, typically a file mapped by GraphFile.  Queries
+ *  read the buffer directly; nothing is copied onto the heap, so opening
+ *  one takes time independent of its size.
+ *
+ *  @author Nicholas Moy.
+ */
+final class MappedGraph extends Graph {
+
+    /** The graph whose structure (as written by FrozenGraph.writeTo)
+     *  starts at int START of DATA, and which is directed iff DIRECTED. */
+    MappedGraph(IntBuffer data, int start, boolean directed)
+        throws IOException {
+        if (data.limit() < start + COUNTS) {
+            throw truncated();
+        }
+        _data = data;
+        _directed = directed;
+        _maxVertex = data.get(start);
+        _vertexSize = data.get(start + 1);
+        _edgeSize = data.get(start + 2);
+        int entries = data.get(start + 3);
+        if (_maxVertex < 0 || entries < 0) {
+            throw new IOException("corrupt graph file");
+        }
+        long rows = (long) _maxVertex + 2;
+        long p = start + COUNTS;
+        _presentAt = (int) p;
+        p += (_maxVertex >> FrozenGraph.WORD_SHIFT) + 1;
+        _outStartAt = (int) p;
+        p += rows;
+        _outTargetsAt = (int) p;
+        p += entries;
+        _outIdsAt = (int) p;
+        p += entries;
+        if (directed) {
+            _inStartAt = (int) p;
+            p += rows;
+            _inSourcesAt = (int) p;
+            p += entries;
+        } else {
+            _inStartAt = _outStartAt;
+            _inSourcesAt = _outTargetsAt;
+        }
+        if (p > data.limit()) {
+            throw truncated();
+        }
+        _end = (int) p;
+    }
+
+    /** Returns the index of the first int of DATA after my structure. */
+    int end() {
+        return _end;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return _data.get(_outStartAt + v + 1) - _data.get(_outStartAt + v);
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return _data.get(_inStartAt + v + 1) - _data.get(_inStartAt + v);
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex
+            && (_data.get(_presentAt + (u >> FrozenGraph.WORD_SHIFT))
+                & (1 << u)) != 0;
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return find(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw readOnly();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public Graph freeze() {
+        return this;
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return Iteration.iteration(verticesInt());
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return Iteration.iteration(successorsInt(v));
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return Iteration.iteration(predecessorsInt(v));
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return new VerticesIteration();
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        return new RowIteration(v, _outStartAt, _outTargetsAt);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        return new RowIteration(v, _inStartAt, _inSourcesAt);
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        forEachEntry(v, _outStartAt, _outTargetsAt, action);
+    }
+
+    @Override
+    public void forEachPredecessor(int v, IntConsumer action) {
+        forEachEntry(v, _inStartAt, _inSourcesAt, action);
+    }
+
+    @Override
+    public void forEachEdge(IntBinaryConsumer action) {
+        for (int u = 1; u <= _maxVertex; u += 1) {
+            for (int i = _data.get(_outStartAt + u),
+                     n = _data.get(_outStartAt + u + 1); i < n; i += 1) {
+                int w = _data.get(_outTargetsAt + i);
+                if (_directed || w >= u) {
+                    action.accept(u, w);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new EdgesIteration();
+    }
+
+    @Override
+    protected int modCount() {
+        return 0;
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        int p = find(u, v);
+        return p < 0 ? 0 : _data.get(_outIdsAt + p);
+    }
+
+    /** Apply ACTION to each entry in the row for V of the rows whose
+     *  offsets start at index STARTAT and whose entries start at index
+     *  ENTRIESAT of _data. */
+    private void forEachEntry(int v, int startAt, int entriesAt,
+                              IntConsumer action) {
+        if (contains(v)) {
+            for (int i = _data.get(startAt + v),
+                     n = _data.get(startAt + v + 1); i < n; i += 1) {
+                action.accept(_data.get(entriesAt + i));
+            }
+        }
+    }
+
+    /** Returns the index of V in the successor entries of U, or -1 if
+     *  (U, V) is not one of my edges. */
+    private int find(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return -1;
+        }
+        int lo = _data.get(_outStartAt + u),
+            hi = _data.get(_outStartAt + u + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int t = _data.get(_outTargetsAt + mid);
+            if (t < v) {
+                lo = mid + 1;
+            } else if (t > v) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the exception thrown by attempts to modify me. */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("graph is read-only");
+    }
+
+    /** Returns the exception thrown for a file that is too short. */
+    private static IOException truncated() {
+        return new IOException("truncated graph file");
+    }
+
+    /** Number of ints of counts preceding my vertex bit vector. */
+    private static final int COUNTS = 4;
+
+    /** My structure. */
+    private final IntBuffer _data;
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** My largest vertex number. */
+    private final int _maxVertex;
+    /** Number of vertices. */
+    private final int _vertexSize;
+    /** Number of edges. */
+    private final int _edgeSize;
+    /** Indices in _data of my vertex bit vector, successor row offsets,
+     *  successor entries, and edge ids of successor entries. */
+    private final int _presentAt, _outStartAt, _outTargetsAt, _outIdsAt;
+    /** Indices in _data of my predecessor row offsets and predecessor
+     *  entries (the same as for successors if I am undirected). */
+    private final int _inStartAt, _inSourcesAt;
+    /** Index in _data just past my structure. */
+    private final int _end;
+
+    /** Iteration over one row. */
+    private class RowIteration extends IntIteration {
+
+        /** Iterate over the row for V of the rows whose offsets start at
+         *  index STARTAT and whose entries start at index ENTRIESAT of
+         *  _data, or over nothing if V is not my vertex. */
+        RowIteration(int v, int startAt, int entriesAt) {
+            if (contains(v)) {
+                _index = entriesAt + _data.get(startAt + v);
+                _end = entriesAt + _data.get(startAt + v + 1);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _end;
+        }
+
+        @Override
+        public int nextInt() {
+            return _data.get(_index++);
+        }
+
+        /** Index in _data of the next entry. */
+        private int _index;
+        /** Index in _data just past the row. */
+        private int _end;
+    }
+
+    /** Iteration over my vertices in increasing order. */
+    private class VerticesIteration extends IntIteration {
+
+        /** Constructor. */
+        VerticesIteration() {
+            _next = 0;
+            toNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next <= _maxVertex;
+        }
+
+        @Override
+        public int nextInt() {
+            int v = _next;
+            toNext();
+            return v;
+        }
+
+        /** Advance _next to my next vertex, or past _maxVertex if none. */
+        private void toNext() {
+            do {
+                _next += 1;
+            } while (_next <= _maxVertex && !contains(_next));
+        }
+
+        /** Next vertex to return. */
+        private int _next;
+    }
+
+    /** Iteration over my edges in the order of my successor entries.  For
+     *  undirected graphs, each edge is returned once, as (u, v) with
+     *  u <= v. */
+    private class EdgesIteration extends Iteration<int[]> {
+
+        /** Constructor. */
+        EdgesIteration() {
+            _u = 0;
+            _index = 0;
+            _entries = _data.get(_outStartAt + _maxVertex + 1);
+            toNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _entries;
+        }
+
+        @Override
+        public int[] next() {
+            _edge[0] = _u;
+            _edge[1] = _data.get(_outTargetsAt + _index);
+            _index += 1;
+            toNext();
+            return _edge;
+        }
+
+        /** Advance _index (and _u) to the next edge to be returned. */
+        private void toNext() {
+            while (_index < _entries) {
+                while (_index >= _data.get(_outStartAt + _u + 1)) {
+                    _u += 1;
+                }
+                if (_directed
+                    || _data.get(_outTargetsAt + _index) >= _u) {
+                    return;
+                }
+                _index += 1;
+            }
+        }
+
+        /** Source of the current row. */
+        private int _u;
+        /** Current index among the successor entries. */
+        private int _index;
+        /** Total number of successor entries. */
+        private final int _entries;
+        /** Array used to return all results. */
+        private final int[] _edge = new int[2];
+    }
+
+}
@@ -0,0 +1,613 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.function.IntConsumer;
+
+/** A Graph whose adjacency lists and edge index live outside the Java
+ *  heap, for graphs so large that per-edge heap objects (or even large
+ *  primitive arrays) would burden the garbage collector.  It behaves like
+ *  a DirectedGraph or UndirectedGraph and may be wrapped by LabeledGraph
+ *  or searched by ShortestPaths in the same way.  Its memory is released
+ *  by close(), after which it may not be used.
+ *
+ *  Storage is in OffHeapInts arrays:
+ *    _table holds, for each vertex v, the start, length, and capacity of
+ *        its successor list and of its predecessor list (the same list for
+ *        an undirected graph) at _table[ROW_FIELDS * v ...].
+ *    _arena holds the lists.  A list that outgrows its capacity is moved to
+ *        the end of the arena, and the arena is compacted when more than
+ *        half of it is abandoned space.
+ *    _slots is an open-addressing hash table from edges to ids, with
+ *        SLOT_FIELDS ints (u, v, id) per slot.  Ids of removed edges are
+ *        reused.
+ *  Only the set of vertex numbers (one bit per vertex) is kept on the heap.
+ *
+ *  @author Nicholas Moy.
+ */
+public class OffHeapGraph extends Graph implements AutoCloseable {
+
+    /** A new, empty graph, which is directed iff DIRECTED. */
+    public OffHeapGraph(boolean directed) {
+        _directed = directed;
+        _inBase = directed ? IN_START : OUT_START;
+        _vertices = new VertexSet();
+        _table = new OffHeapInts(ROW_FIELDS * INITIAL_VERTICES);
+        _arena = new OffHeapInts(INITIAL_ARENA);
+        _slots = new OffHeapInts(SLOT_FIELDS * INITIAL_SLOTS);
+        _shift = Long.SIZE - Integer.numberOfTrailingZeros(INITIAL_SLOTS);
+        _freeIds = new OffHeapInts(INITIAL_SLOTS);
+    }
+
+    /** Release my off-heap memory.  I may not be used afterwards. */
+    @Override
+    public void close() {
+        if (_table != null) {
+            _table.free();
+            _arena.free();
+            _slots.free();
+            _freeIds.free();
+            _table = _arena = _slots = _freeIds = null;
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertices.size();
+    }
+
+    @Override
+    public int maxVertex() {
+        return _vertices.max();
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return contains(v) ? field(v, OUT_SIZE) : 0;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return contains(v) ? field(v, _inBase + SIZE) : 0;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        checkOpen();
+        return _vertices.contains(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        checkOpen();
+        _modCount += 1;
+        int v = _vertices.add();
+        _table.ensure(ROW_FIELDS * (v + 1));
+        _table.clear(ROW_FIELDS * v, ROW_FIELDS * (v + 1));
+        return v;
+    }
+
+    @Override
+    public int add(int u, int v) {
+        checkMyVertex(u);
+        checkMyVertex(v);
+        _modCount += 1;
+        int size = _edgeSize;
+        int e = put(u, v);
+        if (_edgeSize != size) {
+            append(u, OUT_START, v);
+            if (_directed || u != v) {
+                append(v, _inBase, u);
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public void remove(int v) {
+        checkOpen();
+        _modCount += 1;
+        if (_vertices.remove(v)) {
+            int start = field(v, OUT_START), n = field(v, OUT_SIZE);
+            for (int i = 0; i < n; i += 1) {
+                int w = _arena.get(start + i);
+                delete(v, w);
+                if (w != v) {
+                    deleteEntry(w, _inBase, v);
+                }
+            }
+            release(v, OUT_START);
+            if (_directed) {
+                start = field(v, IN_START);
+                n = field(v, IN_SIZE);
+                for (int i = 0; i < n; i += 1) {
+                    int w = _arena.get(start + i);
+                    if (w != v) {
+                        delete(w, v);
+                        deleteEntry(w, OUT_START, v);
+                    }
+                }
+                release(v, IN_START);
+            }
+        }
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        _modCount += 1;
+        if (contains(u) && contains(v) && delete(u, v) != 0) {
+            deleteEntry(u, OUT_START, v);
+            if (_directed || u != v) {
+                deleteEntry(v, _inBase, u);
+            }
+        }
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return Iteration.iteration(verticesInt());
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return Iteration.iteration(successorsInt(v));
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return Iteration.iteration(predecessorsInt(v));
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        checkOpen();
+        return new VerticesIteration();
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        return new RowIteration(v, OUT_START);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        return new RowIteration(v, _inBase);
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        forEachEntry(v, OUT_START, action);
+    }
+
+    @Override
+    public void forEachPredecessor(int v, IntConsumer action) {
+        forEachEntry(v, _inBase, action);
+    }
+
+    @Override
+    public void forEachEdge(IntBinaryConsumer action) {
+        checkOpen();
+        for (int u = _vertices.next(1); u > 0; u = _vertices.next(u + 1)) {
+            int start = field(u, OUT_START), n = field(u, OUT_SIZE);
+            for (int i = 0; i < n; i += 1) {
+                int w = _arena.get(start + i);
+                if (_directed || w >= u) {
+                    action.accept(u, w);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        checkOpen();
+        return new EdgesIteration();
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        if (!_directed && u > v) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        for (int i = slot(u, v); ; i = (i + 1) & (capacity() - 1)) {
+            int id = _slots.get(SLOT_FIELDS * i + ID);
+            if (id == 0) {
+                return 0;
+            }
+            if (_slots.get(SLOT_FIELDS * i + U) == u
+                && _slots.get(SLOT_FIELDS * i + V) == v) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    protected int modCount() {
+        return _modCount;
+    }
+
+    /* Adjacency lists. */
+
+    /** Returns field F of the table entry for vertex V. */
+    private int field(int v, int f) {
+        return _table.get(ROW_FIELDS * v + f);
+    }
+
+    /** Set field F of the table entry for vertex V to X. */
+    private void setField(int v, int f, int x) {
+        _table.set(ROW_FIELDS * v + f, x);
+    }
+
+    /** Apply ACTION to each entry of the list of V that starts at
+     *  field BASE. */
+    private void forEachEntry(int v, int base, IntConsumer action) {
+        if (contains(v)) {
+            int start = field(v, base + START), n = field(v, base + SIZE);
+            for (int i = 0; i < n; i += 1) {
+                action.accept(_arena.get(start + i));
+            }
+        }
+    }
+
+    /** Append X to the list of V that starts at field BASE. */
+    private void append(int v, int base, int x) {
+        int size = field(v, base + SIZE), cap = field(v, base + CAP);
+        if (size == cap) {
+            int newCap = Math.max(INITIAL_DEGREE, 2 * cap);
+            if (_arenaTop + newCap > _arena.capacity()
+                && 2 * _garbage > _arenaTop) {
+                compactArena();
+            }
+            _arena.ensure(_arenaTop + newCap);
+            _arena.copy(field(v, base + START), _arenaTop, size);
+            setField(v, base + START, _arenaTop);
+            setField(v, base + CAP, newCap);
+            _arenaTop += newCap;
+            _garbage += cap;
+        }
+        _arena.set(field(v, base + START) + size, x);
+        setField(v, base + SIZE, size + 1);
+    }
+
+    /** Remove X, if present, from the list of V that starts at field BASE,
+     *  by moving the last entry into its place. */
+    private void deleteEntry(int v, int base, int x) {
+        int start = field(v, base + START), n = field(v, base + SIZE);
+        for (int i = 0; i < n; i += 1) {
+            if (_arena.get(start + i) == x) {
+                _arena.set(start + i, _arena.get(start + n - 1));
+                setField(v, base + SIZE, n - 1);
+                return;
+            }
+        }
+    }
+
+    /** Abandon the list of V that starts at field BASE. */
+    private void release(int v, int base) {
+        _garbage += field(v, base + CAP);
+        setField(v, base + START, 0);
+        setField(v, base + SIZE, 0);
+        setField(v, base + CAP, 0);
+    }
+
+    /** Copy all lists into a fresh arena with no abandoned space. */
+    private void compactArena() {
+        OffHeapInts arena = new OffHeapInts(_arenaTop - _garbage
+                                            + INITIAL_ARENA);
+        int top;
+        top = 0;
+        for (int v = _vertices.next(1); v > 0; v = _vertices.next(v + 1)) {
+            for (int base = OUT_START; base <= _inBase; base += IN_START) {
+                int start = field(v, base + START);
+                int cap = field(v, base + CAP);
+                arena.ensure(top + cap);
+                for (int i = 0; i < field(v, base + SIZE); i += 1) {
+                    arena.set(top + i, _arena.get(start + i));
+                }
+                setField(v, base + START, top);
+                top += cap;
+            }
+        }
+        _arena.free();
+        _arena = arena;
+        _arenaTop = top;
+        _garbage = 0;
+    }
+
+    /* Edge index. */
+
+    /** Returns the number of slots in the hash table. */
+    private int capacity() {
+        return _slots.capacity() / SLOT_FIELDS;
+    }
+
+    /** Returns the home slot of edge (U, V). */
+    private int slot(int u, int v) {
+        long k = ((long) u << Integer.SIZE) | (v & 0xffffffffL);
+        return (int) ((k * HASH_MULTIPLIER) >>> _shift);
+    }
+
+    /** Returns the id of edge (U, V), first adding it to the hash table with
+     *  a new id if absent. */
+    private int put(int u, int v) {
+        if (!_directed && u > v) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        int i;
+        for (i = slot(u, v); ; i = (i + 1) & (capacity() - 1)) {
+            int id = _slots.get(SLOT_FIELDS * i + ID);
+            if (id == 0) {
+                break;
+            }
+            if (_slots.get(SLOT_FIELDS * i + U) == u
+                && _slots.get(SLOT_FIELDS * i + V) == v) {
+                return id;
+            }
+        }
+        int id;
+        if (_freeSize > 0) {
+            _freeSize -= 1;
+            id = _freeIds.get(_freeSize);
+        } else {
+            _maxId += 1;
+            id = _maxId;
+        }
+        setSlot(i, u, v, id);
+        _edgeSize += 1;
+        if (2 * _edgeSize > capacity()) {
+            rehash(2 * capacity());
+        }
+        return id;
+    }
+
+    /** Remove edge (U, V) from the hash table, if present, releasing its
+     *  id.  Returns that id, or 0 if absent. */
+    private int delete(int u, int v) {
+        if (!_directed && u > v) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        int mask = capacity() - 1;
+        int i;
+        for (i = slot(u, v); ; i = (i + 1) & mask) {
+            int id = _slots.get(SLOT_FIELDS * i + ID);
+            if (id == 0) {
+                return 0;
+            }
+            if (_slots.get(SLOT_FIELDS * i + U) == u
+                && _slots.get(SLOT_FIELDS * i + V) == v) {
+                break;
+            }
+        }
+        int id = _slots.get(SLOT_FIELDS * i + ID);
+        _edgeSize -= 1;
+        _freeIds.ensure(_freeSize + 1);
+        _freeIds.set(_freeSize, id);
+        _freeSize += 1;
+
+        int hole = i;
+        for (int j = (i + 1) & mask; _slots.get(SLOT_FIELDS * j + ID) != 0;
+             j = (j + 1) & mask) {
+            int home = slot(_slots.get(SLOT_FIELDS * j + U),
+                            _slots.get(SLOT_FIELDS * j + V));
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                setSlot(hole, _slots.get(SLOT_FIELDS * j + U),
+                        _slots.get(SLOT_FIELDS * j + V),
+                        _slots.get(SLOT_FIELDS * j + ID));
+                hole = j;
+            }
+        }
+        _slots.set(SLOT_FIELDS * hole + ID, 0);
+        return id;
+    }
+
+    /** Set slot I of the hash table to (U, V, ID). */
+    private void setSlot(int i, int u, int v, int id) {
+        _slots.set(SLOT_FIELDS * i + U, u);
+        _slots.set(SLOT_FIELDS * i + V, v);
+        _slots.set(SLOT_FIELDS * i + ID, id);
+    }
+
+    /** Move the hash table to one with CAP slots, a power of 2. */
+    private void rehash(int cap) {
+        OffHeapInts old = _slots;
+        int oldCap = capacity();
+        _slots = new OffHeapInts(SLOT_FIELDS * cap);
+        _shift = Long.SIZE - Integer.numberOfTrailingZeros(cap);
+        for (int j = 0; j < oldCap; j += 1) {
+            int id = old.get(SLOT_FIELDS * j + ID);
+            if (id != 0) {
+                int u = old.get(SLOT_FIELDS * j + U),
+                    v = old.get(SLOT_FIELDS * j + V);
+                int i = slot(u, v);
+                while (_slots.get(SLOT_FIELDS * i + ID) != 0) {
+                    i = (i + 1) & (cap - 1);
+                }
+                setSlot(i, u, v, id);
+            }
+        }
+        old.free();
+    }
+
+    /** Throw an exception if I have been closed. */
+    private void checkOpen() {
+        if (_table == null) {
+            throw new IllegalStateException("graph is closed");
+        }
+    }
+
+    /** Offsets of the fields of a list descriptor. */
+    private static final int START = 0, SIZE = 1, CAP = 2;
+    /** Offsets of the successor and predecessor list descriptors in a
+     *  vertex's table entry. */
+    private static final int OUT_START = 0, OUT_SIZE = OUT_START + SIZE,
+        IN_START = 3, IN_SIZE = IN_START + SIZE;
+    /** Number of ints in a vertex's table entry. */
+    private static final int ROW_FIELDS = 6;
+    /** Offsets of the fields of a hash table slot. */
+    private static final int U = 0, V = 1, ID = 2;
+    /** Number of ints in a hash table slot. */
+    private static final int SLOT_FIELDS = 3;
+    /** Initial sizes of the vertex table, arena, and hash table. */
+    private static final int INITIAL_VERTICES = 16, INITIAL_ARENA = 64,
+        INITIAL_SLOTS = 16;
+    /** Initial capacity of an adjacency list. */
+    private static final int INITIAL_DEGREE = 4;
+    /** Multiplier for Fibonacci hashing of edges. */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Offset of the predecessor list descriptor (OUT_START if
+     *  undirected). */
+    private final int _inBase;
+    /** My vertex numbers. */
+    private final VertexSet _vertices;
+    /** Per-vertex list descriptors. */
+    private OffHeapInts _table;
+    /** Adjacency lists. */
+    private OffHeapInts _arena;
+    /** Index of the first unused int in _arena. */
+    private int _arenaTop;
+    /** Number of abandoned ints in _arena. */
+    private int _garbage;
+    /** Hash table from edges to ids. */
+    private OffHeapInts _slots;
+    /** Shift that reduces a hashed edge to a slot number. */
+    private int _shift;
+    /** Number of edges. */
+    private int _edgeSize;
+    /** Largest edge id ever allocated. */
+    private int _maxId;
+    /** Stack of released edge ids. */
+    private OffHeapInts _freeIds;
+    /** Number of released edge ids. */
+    private int _freeSize;
+    /** Number of calls that may have changed my vertices or edges. */
+    private int _modCount;
+
+    /** Iteration over a snapshot of one adjacency list. */
+    private class RowIteration extends IntIteration {
+
+        /** Iterate over the list of V whose descriptor starts at field
+         *  BASE, or over nothing if V is not my vertex. */
+        RowIteration(int v, int base) {
+            if (contains(v)) {
+                _index = field(v, base + START);
+                _end = _index + field(v, base + SIZE);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _end;
+        }
+
+        @Override
+        public int nextInt() {
+            return _arena.get(_index++);
+        }
+
+        /** Position of the next entry in _arena. */
+        private int _index;
+        /** Position just past the list. */
+        private int _end;
+    }
+
+    /** Iteration over my vertices in increasing order. */
+    private class VerticesIteration extends IntIteration {
+
+        /** Constructor. */
+        VerticesIteration() {
+            _next = _vertices.next(1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            int v = _next;
+            _next = _vertices.next(v + 1);
+            return v;
+        }
+
+        /** Next vertex to return, or -1 if none. */
+        private int _next;
+    }
+
+    /** Iteration over my edges, by increasing source vertex.  In an
+     *  undirected graph, each edge is returned once, as (u, v) with
+     *  u <= v. */
+    private class EdgesIteration extends Iteration<int[]> {
+
+        /** Constructor. */
+        EdgesIteration() {
+            _u = _vertices.next(1);
+            _index = 0;
+            toNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _u > 0;
+        }
+
+        @Override
+        public int[] next() {
+            _edge[0] = _u;
+            _edge[1] = _arena.get(field(_u, OUT_START) + _index);
+            _index += 1;
+            toNext();
+            return _edge;
+        }
+
+        /** Advance _u and _index to the next edge to be returned. */
+        private void toNext() {
+            while (_u > 0) {
+                int start = field(_u, OUT_START), n = field(_u, OUT_SIZE);
+                while (_index < n) {
+                    if (_directed || _arena.get(start + _index) >= _u) {
+                        return;
+                    }
+                    _index += 1;
+                }
+                _u = _vertices.next(_u + 1);
+                _index = 0;
+            }
+        }
+
+        /** Source of the current list. */
+        private int _u;
+        /** Current index in the list of _u. */
+        private int _index;
+        /** Array used to return all results. */
+        private final int[] _edge = new int[2];
+    }
+
+}
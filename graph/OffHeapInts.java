@@ -0,0 +1,133 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/** A growable array of ints held outside the Java heap, in a direct
+ *  ByteBuffer.  The garbage collector sees only this small object, however
+ *  many ints it holds.  The memory is released by free(), or failing that,
+ *  when this object is collected.
+ *
+ *  @author Nicholas Moy.
+ */
+class OffHeapInts {
+
+    /** An array of CAPACITY ints, all 0. */
+    OffHeapInts(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /** Returns my capacity. */
+    int capacity() {
+        return _ints.capacity();
+    }
+
+    /** Returns element I. */
+    int get(int i) {
+        return _ints.get(i);
+    }
+
+    /** Set element I to X. */
+    void set(int i, int x) {
+        _ints.put(i, x);
+    }
+
+    /** Add D to element I. */
+    void add(int i, int d) {
+        _ints.put(i, _ints.get(i) + d);
+    }
+
+    /** Copy the N elements starting at FROM to those starting at TO. */
+    void copy(int from, int to, int n) {
+        for (int i = 0; i < n; i += 1) {
+            _ints.put(to + i, _ints.get(from + i));
+        }
+    }
+
+    /** Ensure that my capacity is at least N, preserving my contents.
+     *  New elements are 0. */
+    void ensure(int n) {
+        if (n > capacity()) {
+            IntBuffer old = _ints;
+            ByteBuffer oldBytes = _bytes;
+            long grown = Math.max(n, 2L * capacity());
+            allocate((int) Math.min(grown, MAX_INTS));
+            old.clear();
+            _ints.put(old);
+            _ints.clear();
+            release(oldBytes);
+        }
+    }
+
+    /** Set elements FROM .. TO-1 to 0. */
+    void clear(int from, int to) {
+        for (int i = from; i < to; i += 1) {
+            _ints.put(i, 0);
+        }
+    }
+
+    /** Release my memory now.  I may not be used afterwards. */
+    void free() {
+        ByteBuffer bytes = _bytes;
+        _bytes = null;
+        _ints = null;
+        release(bytes);
+    }
+
+    /** Replace my storage with N zeroed ints. */
+    private void allocate(int n) {
+        if (n > MAX_INTS) {
+            throw new IllegalStateException("off-heap array too large");
+        }
+        _bytes = ByteBuffer.allocateDirect(n * Integer.BYTES)
+            .order(ByteOrder.nativeOrder());
+        _ints = _bytes.asIntBuffer();
+    }
+
+    /** Free the direct buffer BYTES immediately, if the platform allows;
+     *  otherwise leave it to the garbage collector. */
+    private static void release(ByteBuffer bytes) {
+        if (bytes != null && CLEANER != null) {
+            try {
+                CLEANER.invoke(UNSAFE, bytes);
+            } catch (ReflectiveOperationException excp) {
+                /* Leave it to the collector. */
+            }
+        }
+    }
+
+    /** Largest number of ints in one buffer. */
+    private static final int MAX_INTS = Integer.MAX_VALUE / Integer.BYTES;
+
+    /** The platform's sun.misc.Unsafe, if available. */
+    private static final Object UNSAFE;
+    /** Unsafe.invokeCleaner, if available. */
+    private static final Method CLEANER;
+
+    static {
+        Object unsafe;
+        Method cleaner;
+        try {
+            Class<?> cls = Class.forName("sun.misc.Unsafe");
+            Field f = cls.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+            cleaner = cls.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException excp) {
+            unsafe = null;
+            cleaner = null;
+        }
+        UNSAFE = unsafe;
+        CLEANER = cleaner;
+    }
+
+    /** The underlying memory. */
+    private ByteBuffer _bytes;
+    /** _bytes, viewed as ints. */
+    private IntBuffer _ints;
+}
@@ -0,0 +1,166 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** The labels saved in a graph file, left in the file's mapped buffer and
+ *  decoded by a LabelCodec only when asked for.  The label section (see
+ *  GraphFile) holds tables giving the offset of each vertex's label and
+ *  each edge id's label in the label bytes, and an index of the vertices
+ *  sorted by key, so that nothing is read or decoded in advance.  Each
+ *  label is decoded at most once (barring races, which only repeat the
+ *  work) and kept in a table indexed by vertex or edge id, so repeated
+ *  lookups, as in the weight function of a search, cost no more than for
+ *  labels held in memory.  Several threads may use me at once.
+ *
+ *  @author Nicholas Moy.
+ */
+final class SavedLabels<VL, EL> {
+
+    /** The labels whose section starts at byte AT of BUF, decoded by
+     *  CODEC. */
+    SavedLabels(ByteBuffer buf, int at, LabelCodec<VL, EL> codec)
+        throws IOException {
+        _buf = buf;
+        _codec = codec;
+        long p = at;
+        if (buf.limit() - p < 3 * Integer.BYTES) {
+            throw truncated();
+        }
+        _vertices = buf.getInt((int) p);
+        _edges = buf.getInt((int) p + Integer.BYTES);
+        _keys = buf.getInt((int) p + 2 * Integer.BYTES);
+        if (_vertices < 0 || _edges < 0 || _keys < 0) {
+            throw new IOException("corrupt graph file");
+        }
+        p += 3 * Integer.BYTES;
+        _vertexTableAt = (int) p;
+        p += (long) Integer.BYTES * _vertices;
+        _edgeTableAt = (int) p;
+        p += (long) Integer.BYTES * _edges;
+        _keysAt = (int) p;
+        p += (long) Integer.BYTES * _keys;
+        if (p > buf.limit()) {
+            throw truncated();
+        }
+        _bytesAt = (int) p;
+        _vertexLabels = new AtomicReferenceArray<>(_vertices);
+        _edgeLabels = new AtomicReferenceArray<>(_edges);
+    }
+
+    /** Returns the saved label of vertex V, or null if there is none. */
+    VL vertexLabel(int v) {
+        if (v < 0 || v >= _vertices) {
+            return null;
+        }
+        VL lab = _vertexLabels.get(v);
+        if (lab != null) {
+            return lab;
+        }
+        int off = _buf.getInt(_vertexTableAt + Integer.BYTES * v);
+        if (off < 0) {
+            return null;
+        }
+        try {
+            lab = _codec.readVertexLabel(input(off));
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        _vertexLabels.set(v, lab);
+        return lab;
+    }
+
+    /** Returns the saved label of the edge whose id is E, or null if there
+     *  is none. */
+    EL edgeLabel(int e) {
+        if (e <= 0 || e >= _edges) {
+            return null;
+        }
+        EL lab = _edgeLabels.get(e);
+        if (lab != null) {
+            return lab;
+        }
+        int off = _buf.getInt(_edgeTableAt + Integer.BYTES * e);
+        if (off < 0) {
+            return null;
+        }
+        try {
+            lab = _codec.readEdgeLabel(input(off));
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        _edgeLabels.set(e, lab);
+        return lab;
+    }
+
+    /** Returns a vertex whose label has key KEY, or 0 if there is none.
+     *  Decodes O(lg V) labels. */
+    int find(String key) {
+        int lo = 0, hi = _keys - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int v = _buf.getInt(_keysAt + Integer.BYTES * mid);
+            int c = key.compareTo(_codec.vertexKey(vertexLabel(v)));
+            if (c > 0) {
+                lo = mid + 1;
+            } else if (c < 0) {
+                hi = mid - 1;
+            } else {
+                return v;
+            }
+        }
+        return 0;
+    }
+
+    /** Returns a stream of the label bytes from offset OFF on. */
+    private DataInputStream input(int off) {
+        ByteBuffer in = _buf.duplicate();
+        in.position(_bytesAt + off);
+        return new DataInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return in.hasRemaining() ? in.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int start, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!in.hasRemaining()) {
+                    return -1;
+                }
+                len = Math.min(len, in.remaining());
+                in.get(b, start, len);
+                return len;
+            }
+        });
+    }
+
+    /** Returns the exception thrown for a file that is too short. */
+    private static IOException truncated() {
+        return new IOException("truncated graph file");
+    }
+
+    /** The mapped file. */
+    private final ByteBuffer _buf;
+    /** Decodes labels. */
+    private final LabelCodec<VL, EL> _codec;
+    /** Lengths of the vertex table, edge table, and key index. */
+    private final int _vertices, _edges, _keys;
+    /** Byte positions in _buf of the vertex table, edge table, key index,
+     *  and label bytes. */
+    private final int _vertexTableAt, _edgeTableAt, _keysAt, _bytesAt;
+    /** Labels decoded so far, indexed by vertex, or null where not yet
+     *  decoded. */
+    private final AtomicReferenceArray<VL> _vertexLabels;
+    /** Labels decoded so far, indexed by edge id, or null where not yet
+     *  decoded. */
+    private final AtomicReferenceArray<EL> _edgeLabels;
+}
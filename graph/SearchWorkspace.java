@@ -0,0 +1,234 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/** Per-vertex storage for one shortest-path search: weights, predecessors,
+ *  settled flags, memoized estimates, the state of a backward search, and
+ *  the fringes.  Each vertex carries a generation stamp, and a value is
+ *  current only if its vertex's stamp matches the workspace's generation,
+ *  so that reset, which just advances the generation, takes constant time
+ *  (apart from emptying the fringes), and a search costs time
+ *  proportional to the part of the graph it explores rather than to the
+ *  size of the graph.
+ *
+ *  Workspaces are pooled per graph and per thread: borrow takes one from
+ *  the current thread's pool for a graph (or makes one), and release
+ *  returns it.  A workspace that is never released is simply garbage
+ *  collected.  A workspace must be used by one thread at a time.
+ *
+ *  @author Nicholas Moy.
+ */
+final class SearchWorkspace {
+
+    /** Returns a reset workspace large enough for G, taken from the
+     *  current thread's pool for G if possible. */
+    static SearchWorkspace borrow(Graph G) {
+        int n = G.maxVertex() + 1;
+        ArrayDeque<SearchWorkspace> free = POOLS.get().get(G);
+        while (free != null && !free.isEmpty()) {
+            SearchWorkspace work = free.pop();
+            if (work.fits(n)) {
+                work.reset();
+                return work;
+            }
+        }
+        return new SearchWorkspace(n);
+    }
+
+    /** Return me to the current thread's pool for G, the graph for which
+     *  I was borrowed.  I must not be used afterwards. */
+    void release(Graph G) {
+        ArrayDeque<SearchWorkspace> free =
+            POOLS.get().computeIfAbsent(G, g -> new ArrayDeque<>());
+        if (free.size() < MAX_POOLED) {
+            free.push(this);
+        }
+    }
+
+    /** A workspace for vertices 0 .. CAPACITY-1. */
+    private SearchWorkspace(int capacity) {
+        _capacity = capacity;
+        _stamp = new int[capacity];
+        _weight = new double[capacity];
+        _pred = new int[capacity];
+        _settled = new boolean[capacity];
+        _forward = new IndexedHeap(capacity);
+        _gen = 1;
+    }
+
+    /** Returns true iff I can hold vertices 0 .. N-1. */
+    boolean fits(int n) {
+        return n <= _capacity;
+    }
+
+    /** Forget all values, and empty the fringes. */
+    void reset() {
+        _gen += 1;
+        if (_gen == 0) {
+            Arrays.fill(_stamp, 0);
+            _gen = 1;
+        }
+        _forward.clear();
+        if (_backward != null) {
+            _backward.clear();
+        }
+    }
+
+    /** Returns the weight of V, initially positive infinity. */
+    double weight(int v) {
+        return _stamp[v] == _gen ? _weight[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Set weight(V) to W. */
+    void setWeight(int v, double w) {
+        touch(v);
+        _weight[v] = w;
+    }
+
+    /** Returns the predecessor of V, initially 0. */
+    int predecessor(int v) {
+        return _stamp[v] == _gen ? _pred[v] : 0;
+    }
+
+    /** Set predecessor(V) to U. */
+    void setPredecessor(int v, int u) {
+        touch(v);
+        _pred[v] = u;
+    }
+
+    /** Returns true iff V has been settled by the forward search. */
+    boolean settled(int v) {
+        return _stamp[v] == _gen && _settled[v];
+    }
+
+    /** Record that V has been settled by the forward search. */
+    void settle(int v) {
+        touch(v);
+        _settled[v] = true;
+    }
+
+    /** Returns the memoized estimate for V, initially NaN. */
+    double estimate(int v) {
+        return _estimate != null && _stamp[v] == _gen
+            ? _estimate[v] : Double.NaN;
+    }
+
+    /** Set estimate(V) to E. */
+    void setEstimate(int v, double e) {
+        if (_estimate == null) {
+            _estimate = new double[_capacity];
+            Arrays.fill(_estimate, Double.NaN);
+        }
+        touch(v);
+        _estimate[v] = e;
+    }
+
+    /** Returns the distance from V to the destination found by the
+     *  backward search, initially positive infinity. */
+    double backDistance(int v) {
+        return _backDist != null && _stamp[v] == _gen
+            ? _backDist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Returns the successor of V on its path to the destination found
+     *  by the backward search, initially 0. */
+    int backNext(int v) {
+        return _backNext != null && _stamp[v] == _gen ? _backNext[v] : 0;
+    }
+
+    /** Set backDistance(V) to D and backNext(V) to NEXT. */
+    void setBack(int v, double d, int next) {
+        backward();
+        touch(v);
+        _backDist[v] = d;
+        _backNext[v] = next;
+    }
+
+    /** Returns true iff V has been settled by the backward search. */
+    boolean backSettled(int v) {
+        return _backSettled != null && _stamp[v] == _gen && _backSettled[v];
+    }
+
+    /** Record that V has been settled by the backward search. */
+    void backSettle(int v) {
+        backward();
+        touch(v);
+        _backSettled[v] = true;
+    }
+
+    /** Returns the fringe of the forward search. */
+    IndexedHeap forward() {
+        return _forward;
+    }
+
+    /** Returns the fringe of the backward search, allocating the backward
+     *  search's storage on first use. */
+    IndexedHeap backward() {
+        if (_backward == null) {
+            _backDist = new double[_capacity];
+            Arrays.fill(_backDist, Double.POSITIVE_INFINITY);
+            _backNext = new int[_capacity];
+            _backSettled = new boolean[_capacity];
+            _backward = new IndexedHeap(_capacity);
+        }
+        return _backward;
+    }
+
+    /** Give V its initial values, if it has none in this generation. */
+    private void touch(int v) {
+        if (_stamp[v] != _gen) {
+            _stamp[v] = _gen;
+            _weight[v] = Double.POSITIVE_INFINITY;
+            _pred[v] = 0;
+            _settled[v] = false;
+            if (_estimate != null) {
+                _estimate[v] = Double.NaN;
+            }
+            if (_backDist != null) {
+                _backDist[v] = Double.POSITIVE_INFINITY;
+                _backNext[v] = 0;
+                _backSettled[v] = false;
+            }
+        }
+    }
+
+    /** Largest number of idle workspaces kept per graph and thread. */
+    private static final int MAX_POOLED = 4;
+
+    /** Idle workspaces of the current thread, by graph.  Graphs are held
+     *  weakly, and workspaces do not refer to their graphs, so pooling does
+     *  not keep graphs alive. */
+    private static final
+        ThreadLocal<Map<Graph, ArrayDeque<SearchWorkspace>>> POOLS =
+        ThreadLocal.withInitial(WeakHashMap::new);
+
+    /** Number of vertices I can hold. */
+    private final int _capacity;
+    /** Current generation. */
+    private int _gen;
+    /** Generation in which each vertex's values were set. */
+    private final int[] _stamp;
+    /** Weights, indexed by vertex. */
+    private final double[] _weight;
+    /** Predecessors, indexed by vertex. */
+    private final int[] _pred;
+    /** Forward settled flags, indexed by vertex. */
+    private final boolean[] _settled;
+    /** Memoized estimates, indexed by vertex, or null until needed. */
+    private double[] _estimate;
+    /** Backward distances, indexed by vertex, or null until needed. */
+    private double[] _backDist;
+    /** Backward successors, indexed by vertex, or null until needed. */
+    private int[] _backNext;
+    /** Backward settled flags, indexed by vertex, or null until needed. */
+    private boolean[] _backSettled;
+    /** Forward fringe. */
+    private final IndexedHeap _forward;
+    /** Backward fringe, or null until needed. */
+    private IndexedHeap _backward;
+}
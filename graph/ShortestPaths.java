@@ -4,15 +4,16 @@ package graph;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 import java.util.Stack;
-import java.util.Comparator;
 
 /** The shortest paths through an edge-weighted graph.
  *  By overrriding methods getWeight, setWeight, getPredecessor, and
  *  setPredecessor, the client can determine how to represent the weighting
  *  and the search results.  By overriding estimatedDistance, clients
  *  can search for paths to specific destinations using A* search.
+ *  Searches keep their working storage in a pooled SearchWorkspace, which
+ *  clients return with release once they are done with the results.
  *  @author Nicholas Moy.
  */
 public abstract class ShortestPaths {
@@ -27,47 +28,266 @@ public abstract class ShortestPaths {
         _G = G;
         _source = source;
         _dest = dest;
-        _visited = new ArrayList<>();
     }
 
     /** Initialize the shortest paths.  Must be called before using
-     *  getWeight, getPredecessor, and pathTo. */
+     *  getWeight, getPredecessor, and pathTo.  The search's working storage
+     *  is borrowed on the first call and reused by later ones until
+     *  release. */
     public void setPaths() {
-        PriorityQueue<Integer> fringe = new PriorityQueue<>(new CompWeights());
-        for (int v : _G.vertices()) {
+        int n = _G.maxVertex() + 1;
+        if (_work != null && !_work.fits(n)) {
+            release();
+        }
+        if (_work == null) {
+            _work = SearchWorkspace.borrow(_G);
+        } else {
+            _work.reset();
+        }
+        clearPaths();
+        _reachedSize = 0;
+        _bothWays = _bidirectional && _bound == Double.POSITIVE_INFINITY
+            && _G.contains(getSource()) && _G.contains(getDest());
+        if (_bothWays) {
+            searchBothWays();
+        } else {
+            searchForward();
+        }
+    }
+
+    /** Set the weight of every vertex to positive infinity and its
+     *  predecessor to 0, as setPaths requires before searching.  By
+     *  default, this calls setWeight and setPredecessor for every vertex;
+     *  subclasses whose storage can be cleared faster should override
+     *  it. */
+    protected void clearPaths() {
+        for (IntIteration verts = _G.verticesInt(); verts.hasNext(); ) {
+            int v = verts.nextInt();
             setWeight(v, Double.POSITIVE_INFINITY);
             setPredecessor(v, 0);
-            fringe.add(v);
         }
-        setWeight(getSource(), 0);
-        fringe.remove(getSource());
-        fringe.add(getSource());
-        _visited = new ArrayList<>();
+    }
 
+    /** Return the working storage of setPaths to a pool for reuse by
+     *  other searches of the same graph on this thread.  Results kept in
+     *  that storage (as by SimpleShortestPaths) are lost; the next
+     *  setPaths borrows storage again. */
+    public void release() {
+        if (_work != null) {
+            _work.release(_G);
+            _work = null;
+        }
+    }
+
+    /** Returns the working storage of the last setPaths, or null if it
+     *  has been released. */
+    SearchWorkspace workspace() {
+        return _work;
+    }
+
+    /** Search from the source over successors until the destination, if
+     *  any, is settled. */
+    private void searchForward() {
+        IndexedHeap fringe = _work.forward();
+        if (_G.contains(getSource())) {
+            setWeight(getSource(), 0);
+            fringe.insert(getSource(), potential(getSource()));
+        }
+
+        boolean bounded = _bound < Double.POSITIVE_INFINITY;
         while (!fringe.isEmpty()) {
             int v = fringe.poll();
-            _visited.add(v);
+            _work.settle(v);
+            if (bounded) {
+                reach(v);
+            }
             if (v == getDest()) {
                 break;
             }
-            for (int neighbor : _G.successors(v)) {
-                double total = getWeight(v) + getWeight(v, neighbor);
-                if (total > getWeight(neighbor)
-                        && _visited.contains(neighbor)) {
-                    continue;
-                } else if (total < getWeight(neighbor)
-                        || !fringe.contains(neighbor)) {
-                    setWeight(neighbor, total);
-                    setPredecessor(neighbor, v);
-                    if (fringe.contains(neighbor)) {
-                        fringe.remove(neighbor);
-                        fringe.add(neighbor);
-                    }
-                }
+            double w = getWeight(v);
+            _G.forEachSuccessor(v, neighbor -> relax(v, w, neighbor, fringe));
+        }
+    }
+
+    /** Search forward from the source over successors and backward from
+     *  the destination over predecessors, always advancing the side with
+     *  the smaller fringe key, until no path through the unsettled
+     *  vertices can be shorter than the best path found through a vertex
+     *  reached from both sides.  Then record that path through setWeight
+     *  and setPredecessor. */
+    private void searchBothWays() {
+        IndexedHeap forward = _work.forward(),
+            backward = _work.backward();
+        _best = Double.POSITIVE_INFINITY;
+        _meet = 0;
+
+        setWeight(getSource(), 0);
+        forward.insert(getSource(), potential(getSource()));
+        _work.setBack(getDest(), 0, 0);
+        backward.insert(getDest(), -potential(getDest()));
+        if (getSource() == getDest()) {
+            meet(getSource(), 0);
+        }
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            double top = forward.key(forward.peek()),
+                backTop = backward.key(backward.peek());
+            if (top + backTop >= _best) {
+                break;
+            }
+            if (top <= backTop) {
+                int v = forward.poll();
+                _work.settle(v);
+                double w = getWeight(v);
+                _G.forEachSuccessor(v, next -> relax(v, w, next, forward));
+            } else {
+                int v = backward.poll();
+                _work.backSettle(v);
+                double w = _work.backDistance(v);
+                _G.forEachPredecessor(v, prev ->
+                                      relaxBackward(prev, v, w, backward));
+            }
+        }
+
+        if (_meet != 0) {
+            for (int v = _meet; v != getDest(); v = _work.backNext(v)) {
+                int next = _work.backNext(v);
+                setWeight(next, getWeight(v) + getWeight(v, next));
+                setPredecessor(next, v);
+            }
+        }
+    }
+
+    /** Relax the edge (V, NEIGHBOR), where V, whose weight is W, has just
+     *  been removed from FRINGE.  Vertices enter FRINGE when first
+     *  reached, keyed by weight plus potential. */
+    private void relax(int v, double w, int neighbor, IndexedHeap fringe) {
+        if (_work.settled(neighbor)) {
+            return;
+        }
+        double total = w + getWeight(v, neighbor);
+        if (total < getWeight(neighbor) && total <= _bound) {
+            setWeight(neighbor, total);
+            setPredecessor(neighbor, v);
+            fringe.insertOrDecrease(neighbor, total + potential(neighbor));
+            if (_bothWays) {
+                meet(neighbor, total + _work.backDistance(neighbor));
             }
         }
     }
 
+    /** Relax the edge (NEIGHBOR, V) backward, where V, whose distance to
+     *  the destination is W, has just been removed from FRINGE. */
+    private void relaxBackward(int neighbor, int v, double w,
+                               IndexedHeap fringe) {
+        if (_work.backSettled(neighbor)) {
+            return;
+        }
+        double total = w + getWeight(neighbor, v);
+        if (total < _work.backDistance(neighbor)) {
+            _work.setBack(neighbor, total, v);
+            fringe.insertOrDecrease(neighbor, total - potential(neighbor));
+            meet(neighbor, getWeight(neighbor) + total);
+        }
+    }
+
+    /** Append V to the vertices reached by a bounded search. */
+    private void reach(int v) {
+        if (_reachedSize == _reached.length) {
+            _reached = Arrays.copyOf(_reached, 2 * _reachedSize);
+        }
+        _reached[_reachedSize] = v;
+        _reachedSize += 1;
+    }
+
+    /** Record that there is a path of length LENGTH from the source to the
+     *  destination through V, if it is the shortest found so far. */
+    private void meet(int v, double length) {
+        if (length < _best) {
+            _best = length;
+            _meet = v;
+        }
+    }
+
+    /** Returns the potential of V, which orders the fringe: the estimated
+     *  distance from V to the destination, or, when searching both ways,
+     *  half the difference of that and the estimated distance from the
+     *  source to V, which is consistent in both directions.  Computed only
+     *  on the first call for V in each setPaths if estimates are
+     *  memoized. */
+    private double potential(int v) {
+        if (!_memoizeEstimates) {
+            return computePotential(v);
+        }
+        double p = _work.estimate(v);
+        if (Double.isNaN(p)) {
+            p = computePotential(v);
+            _work.setEstimate(v, p);
+        }
+        return p;
+    }
+
+    /** Returns the potential of V, as for potential(V), without
+     *  memoization. */
+    private double computePotential(int v) {
+        if (_bothWays) {
+            return (estimatedDistance(v) - estimatedDistanceFromSource(v))
+                / 2;
+        }
+        return estimatedDistance(v);
+    }
+
+    /** If BIDIRECTIONAL, then setPaths for a destination will search
+     *  backward from the destination (over predecessors) as well as
+     *  forward from the source, stopping once the two searches prove a
+     *  shortest path, which typically settles far fewer vertices.  The
+     *  results are the same except that only vertices on the path to the
+     *  destination are guaranteed to have their final weights and
+     *  predecessors.  Requires that estimatedDistance and
+     *  estimatedDistanceFromSource both be consistent (never decreasing by
+     *  more than an edge's weight along that edge).  Initially false. */
+    public void setBidirectional(boolean bidirectional) {
+        _bidirectional = bidirectional;
+    }
+
+    /** Limit setPaths to paths of weight at most BOUND: vertices farther
+     *  from the source are neither weighted nor settled, so the search
+     *  explores only the region within BOUND (for example, everything
+     *  within 15 miles of the source).  The vertices reached are then
+     *  available from reachedVertices and reachedWeights.  A bounded
+     *  search never searches both ways.  Initially positive infinity
+     *  (no bound). */
+    public void setBound(double bound) {
+        _bound = bound;
+    }
+
+    /** Returns the vertices settled by the last setPaths, which must have
+     *  been bounded (see setBound), in order of increasing weight (when
+     *  estimatedDistance is 0).  The source comes first.  If there is a
+     *  destination, the search stops when it is settled. */
+    public int[] reachedVertices() {
+        return Arrays.copyOf(_reached, _reachedSize);
+    }
+
+    /** Returns the weights of the vertices in reachedVertices(), in the
+     *  same order. */
+    public double[] reachedWeights() {
+        double[] result = new double[_reachedSize];
+        for (int i = 0; i < _reachedSize; i += 1) {
+            result[i] = getWeight(_reached[i]);
+        }
+        return result;
+    }
+
+    /** If MEMOIZE, then setPaths will call estimatedDistance at most once
+     *  per vertex, remembering the result for the rest of the search.  This
+     *  pays when estimatedDistance is expensive, since a vertex's priority
+     *  is recomputed each time a shorter path to it is found.  Initially
+     *  false. */
+    public void setMemoizeEstimates(boolean memoize) {
+        _memoizeEstimates = memoize;
+    }
+
     /** Returns the starting vertex. */
     public int getSource() {
         return _source;
@@ -99,6 +319,15 @@ public abstract class ShortestPaths {
         return 0.0;
     }
 
+    /** Returns an estimated heuristic weight of the shortest path from the
+     *  source to vertex V, used by bidirectional searches (see
+     *  setBidirectional) as estimatedDistance is used for the destination.
+     *  This is assumed to be less than the actual weight, and is 0 by
+     *  default. */
+    protected double estimatedDistanceFromSource(int v) {
+        return 0.0;
+    }
+
     /** Returns the current weight of edge (U, V) in the graph.  If (U, V) is
      *  not in the graph, returns positive infinity. */
     protected abstract double getWeight(int u, int v);
@@ -133,16 +362,23 @@ public abstract class ShortestPaths {
     private final int _source;
     /** The target vertex. */
     private final int _dest;
-    /** ArrayList of visited nodes. */
-    private ArrayList<Integer> _visited;
-
-    /** Comparator Class to order fringe in setPaths(). */
-    private class CompWeights implements Comparator<Integer> {
-        @Override
-        public int compare(Integer o1, Integer o2) {
-            Double first = getWeight(o1) + estimatedDistance(o1);
-            Double second = getWeight(o2) + estimatedDistance(o2);
-            return first.compareTo(second);
-        }
-    }
+    /** Working storage of the last setPaths, or null. */
+    private SearchWorkspace _work;
+    /** Largest weight of a path explored by setPaths. */
+    private double _bound = Double.POSITIVE_INFINITY;
+    /** Vertices settled by the last bounded setPaths, in
+     *  _reached[0 .. _reachedSize-1]. */
+    private int[] _reached = new int[16];
+    /** Number of vertices in _reached. */
+    private int _reachedSize;
+    /** True iff setPaths memoizes estimatedDistance. */
+    private boolean _memoizeEstimates;
+    /** True iff setPaths searches both ways when there is a destination. */
+    private boolean _bidirectional;
+    /** True iff the current setPaths is searching both ways. */
+    private boolean _bothWays;
+    /** Length of the shortest path found through _meet. */
+    private double _best;
+    /** Vertex joining the best forward and backward paths, or 0. */
+    private int _meet;
 }
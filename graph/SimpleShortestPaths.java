@@ -4,7 +4,9 @@ package graph;
 
 /** A partial implementation of ShortestPaths that contains the weights of
  *  the vertices and the predecessor edges.   The client needs to
- *  supply only the two-argument getWeight method.
+ *  supply only the two-argument getWeight method.  The weights and
+ *  predecessors live in the search's workspace, so clearing them costs
+ *  constant time, and they are available until release.
  *  @author Nicholas Moy.
  */
 public abstract class SimpleShortestPaths extends ShortestPaths {
@@ -17,10 +19,6 @@ public abstract class SimpleShortestPaths extends ShortestPaths {
     /** A shortest path in G from SOURCE to DEST. */
     public SimpleShortestPaths(Graph G, int source, int dest) {
         super(G, source, dest);
-
-        int N = _G.maxVertex();
-        _weights = new double[N + 1];
-        _preds = new int[N + 1];
     }
 
     /** Returns the current weight of edge (U, V) in the graph.  If (U, V) is
@@ -30,30 +28,34 @@ public abstract class SimpleShortestPaths extends ShortestPaths {
 
     @Override
     public double getWeight(int v) {
-        if (!_G.contains(v)) {
+        if (!_G.contains(v) || workspace() == null) {
             return Double.POSITIVE_INFINITY;
         }
-        return _weights[v];
+        return workspace().weight(v);
     }
 
     @Override
     protected void setWeight(int v, double w) {
-        _weights[v] = w;
+        workspace().setWeight(v, w);
     }
 
     @Override
     public int getPredecessor(int v) {
-        return _preds[v];
+        if (!_G.contains(v) || workspace() == null) {
+            return 0;
+        }
+        return workspace().predecessor(v);
     }
 
     @Override
     protected void setPredecessor(int v, int u) {
-        _preds[v] = u;
+        workspace().setPredecessor(v, u);
     }
 
-    /** Array of doubles containing weights of vertices. */
-    private double[] _weights;
-    /** Array of integers containing predecessors. */
-    private int[] _preds;
+    /** Does nothing: a reset workspace already gives every vertex infinite
+     *  weight and no predecessor. */
+    @Override
+    protected void clearPaths() {
+    }
 
 }
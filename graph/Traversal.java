@@ -2,7 +2,6 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Queue;
@@ -23,7 +22,10 @@ import java.util.Queue;
  *  the addition of neighbor vertices to the fringe when a vertex is visited.
  *
  *  Traversals may be interrupted or restarted, remembering the previously
- *  marked vertices.
+ *  marked vertices.  Marks are kept in a bitset indexed by vertex number;
+ *  a traversal that is cleared and reused many times may instead keep
+ *  them in generation-stamped form (see setReusable), which clears in
+ *  constant time.
  *  @author Nicholas Moy.
  */
 public abstract class Traversal {
@@ -32,13 +34,24 @@ public abstract class Traversal {
     protected Traversal(Graph G, Queue<Integer> fringe) {
         _G = G;
         _fringe = fringe;
-        _marked = new ArrayList<>();
-        _toPostVisit = new ArrayList<>();
+        _marked = VertexMarks.bits(G.maxVertex() + 1);
+        _toPostVisit = VertexMarks.bits(G.maxVertex() + 1);
     }
 
     /** Unmark all vertices in the graph. */
     public void clear() {
-        _marked = new ArrayList<>();
+        _marked.clear();
+    }
+
+    /** If REUSABLE, keep marks as an int per vertex, stamped with a
+     *  generation number, so that clear takes constant time; otherwise,
+     *  as a bit per vertex (the default), which clear must zero.  Also
+     *  unmarks all vertices and forgets which have been post-visited. */
+    public void setReusable(boolean reusable) {
+        int n = _G.maxVertex() + 1;
+        _marked = reusable ? VertexMarks.stamped(n) : VertexMarks.bits(n);
+        _toPostVisit =
+            reusable ? VertexMarks.stamped(n) : VertexMarks.bits(n);
     }
 
     /** Initialize the fringe to V0 and perform a traversal. */
@@ -103,11 +116,11 @@ public abstract class Traversal {
      *  default implementation simply processes each successor using
      *  processSuccessor. */
     protected void processSuccessors(int u) {
-        for (int v : _G.successors(u)) {
+        _G.forEachSuccessor(u, v -> {
             if (processSuccessor(u, v)) {
                 _fringe.add(v);
             }
-        }
+        });
     }
 
     /** Process successor V to U.  Returns true iff V is then to
@@ -116,13 +129,18 @@ public abstract class Traversal {
         return !marked(v);
     }
 
+    /** Returns the graph being traversed. */
+    protected Graph getGraph() {
+        return _G;
+    }
+
     /** The graph being traversed. */
     private final Graph _G;
     /** The fringe. */
     protected final Queue<Integer> _fringe;
-    /** ArrayList of all marked vertices. */
-    private ArrayList<Integer> _marked;
-    /** ArrayList of all vertices to be postVisited. */
-    private ArrayList<Integer> _toPostVisit;
+    /** All marked vertices. */
+    private VertexMarks _marked;
+    /** All vertices that have been postVisited. */
+    private VertexMarks _toPostVisit;
 
 }
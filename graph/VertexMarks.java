@@ -0,0 +1,118 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A set of vertices marked during a traversal, held in a primitive array
+ *  indexed by vertex number, so that marking and testing a vertex take
+ *  constant time and box nothing.  There are two representations: a
+ *  bitset, which takes a bit per vertex and is cleared by zeroing it, and
+ *  a generation-stamped array, which takes an int per vertex and is
+ *  cleared in constant time by starting a new generation.  Either grows
+ *  as needed to hold vertices added to the graph after it was made.
+ *
+ *  @author Nicholas Moy.
+ */
+abstract class VertexMarks {
+
+    /** Returns an empty bitset of marks for vertices 0 .. N-1. */
+    static VertexMarks bits(int n) {
+        return new Bits(n);
+    }
+
+    /** Returns an empty generation-stamped set of marks for vertices
+     *  0 .. N-1. */
+    static VertexMarks stamped(int n) {
+        return new Stamps(n);
+    }
+
+    /** Returns true iff V is marked. */
+    abstract boolean contains(int v);
+
+    /** Mark V.  Returns true iff it was not already marked. */
+    abstract boolean add(int v);
+
+    /** Unmark all vertices. */
+    abstract void clear();
+
+    /** Marks kept as one bit per vertex. */
+    private static final class Bits extends VertexMarks {
+
+        /** Empty marks for vertices 0 .. N-1. */
+        Bits(int n) {
+            _words = new long[(n + WORD - 1) / WORD];
+        }
+
+        @Override
+        boolean contains(int v) {
+            int w = v / WORD;
+            return w < _words.length && (_words[w] & (1L << v)) != 0;
+        }
+
+        @Override
+        boolean add(int v) {
+            int w = v / WORD;
+            if (w >= _words.length) {
+                _words = Arrays.copyOf(_words,
+                                       Math.max(w + 1, 2 * _words.length));
+            }
+            long old = _words[w];
+            _words[w] = old | (1L << v);
+            return old != _words[w];
+        }
+
+        @Override
+        void clear() {
+            Arrays.fill(_words, 0L);
+        }
+
+        /** Bits per word. */
+        private static final int WORD = 64;
+
+        /** Bit v % 64 of _words[v / 64] is set iff v is marked. */
+        private long[] _words;
+    }
+
+    /** Marks kept as generation numbers. */
+    private static final class Stamps extends VertexMarks {
+
+        /** Empty marks for vertices 0 .. N-1. */
+        Stamps(int n) {
+            _stamps = new int[Math.max(n, 1)];
+            _gen = 1;
+        }
+
+        @Override
+        boolean contains(int v) {
+            return v < _stamps.length && _stamps[v] == _gen;
+        }
+
+        @Override
+        boolean add(int v) {
+            if (v >= _stamps.length) {
+                _stamps = Arrays.copyOf(_stamps,
+                                        Math.max(v + 1, 2 * _stamps.length));
+            }
+            if (_stamps[v] == _gen) {
+                return false;
+            }
+            _stamps[v] = _gen;
+            return true;
+        }
+
+        @Override
+        void clear() {
+            if (_gen == Integer.MAX_VALUE) {
+                Arrays.fill(_stamps, 0);
+                _gen = 0;
+            }
+            _gen += 1;
+        }
+
+        /** _stamps[v] == _gen iff v is marked. */
+        private int[] _stamps;
+        /** The current generation. */
+        private int _gen;
+    }
+}
@@ -0,0 +1,133 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/** The set of vertex numbers in use by a graph.  Membership is a bit per
+ *  vertex number.  Numbers that have been handed out and later released
+ *  sit in a binary min-heap, so that the smallest unused number >= 1 is
+ *  found in O(log V) time.  The largest vertex number is cached.
+ *
+ *  @author Nicholas Moy.
+ */
+class VertexSet {
+
+    /** An empty set. */
+    VertexSet() {
+        _present = new BitSet();
+        _free = new int[INITIAL_FREE];
+    }
+
+    /** Returns the number of vertices in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns my largest vertex, or 0 if I am empty. */
+    int max() {
+        return _max;
+    }
+
+    /** Returns true iff V is in me. */
+    boolean contains(int v) {
+        return v > 0 && _present.get(v);
+    }
+
+    /** Returns the smallest vertex in me that is >= V, or -1 if there is
+     *  none. */
+    int next(int v) {
+        return _present.nextSetBit(Math.max(v, 1));
+    }
+
+    /** Add the smallest positive integer not in me, and return it. */
+    int add() {
+        int v;
+        if (_freeSize > 0) {
+            v = popFree();
+        } else {
+            _limit += 1;
+            v = _limit;
+        }
+        _present.set(v);
+        _size += 1;
+        if (v > _max) {
+            _max = v;
+        }
+        return v;
+    }
+
+    /** Remove V, if present.  Returns true iff it was present. */
+    boolean remove(int v) {
+        if (!contains(v)) {
+            return false;
+        }
+        _present.clear(v);
+        _size -= 1;
+        pushFree(v);
+        if (v == _max) {
+            _max = Math.max(0, _present.previousSetBit(v - 1));
+        }
+        return true;
+    }
+
+    /** Add V to the heap of released vertex numbers. */
+    private void pushFree(int v) {
+        if (_freeSize == _free.length) {
+            _free = Arrays.copyOf(_free, 2 * _free.length);
+        }
+        int k = _freeSize;
+        _freeSize += 1;
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (_free[parent] <= v) {
+                break;
+            }
+            _free[k] = _free[parent];
+            k = parent;
+        }
+        _free[k] = v;
+    }
+
+    /** Remove and return the smallest released vertex number. */
+    private int popFree() {
+        int result = _free[0];
+        _freeSize -= 1;
+        int last = _free[_freeSize];
+        int k = 0;
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= _freeSize) {
+                break;
+            }
+            if (child + 1 < _freeSize && _free[child + 1] < _free[child]) {
+                child += 1;
+            }
+            if (last <= _free[child]) {
+                break;
+            }
+            _free[k] = _free[child];
+            k = child;
+        }
+        _free[k] = last;
+        return result;
+    }
+
+    /** Initial capacity of _free. */
+    private static final int INITIAL_FREE = 8;
+
+    /** Bit v is set iff v is in me. */
+    private final BitSet _present;
+    /** Number of vertices in me. */
+    private int _size;
+    /** My largest vertex, or 0. */
+    private int _max;
+    /** The largest vertex number ever added.  Every unused number from 1
+     *  to _limit is in _free. */
+    private int _limit;
+    /** Binary min-heap of released numbers, _free[0 .. _freeSize-1]. */
+    private int[] _free;
+    /** Number of entries in _free. */
+    private int _freeSize;
+}
@@ -0,0 +1,16 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A source of edge weights for algorithms that take weights from outside
+ *  the graph, such as ContractionHierarchy.
+ *
+ *  @author Nicholas Moy.
+ */
+@FunctionalInterface
+public interface WeightFunction {
+
+    /** Returns the weight of the edge (U, V), which must be non-negative. */
+    double weight(int u, int v);
+
+}
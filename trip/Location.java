@@ -1,5 +1,9 @@
 package trip;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import static java.lang.Math.sqrt;
 
 /** Represents a location on a map.
@@ -14,6 +18,18 @@ class Location {
         _y = y;
     }
 
+    /** Returns a Location read from IN, as written by writeTo. */
+    static Location readFrom(DataInput in) throws IOException {
+        return new Location(in.readUTF(), in.readDouble(), in.readDouble());
+    }
+
+    /** Write me to OUT. */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(_name);
+        out.writeDouble(_x);
+        out.writeDouble(_y);
+    }
+
     /** Return the distance between me and Y. */
     double dist(Location y) {
         double dx = _x - y._x;
@@ -19,17 +19,34 @@ public final class Main {
 
     /** Entry point for the CS61B trip program.  RAWARGS may contain options
      *  and targets:
-     *      [ -m MAP ] [ -o OUT ] [ REQUEST ]
+     *      [ -m MAP ] [ -o OUT ] [ -b BINMAP ] [ -c HIERARCHY ]
+     *      [ -l LANDMARKS ] [ -r ORDER ] [ -i MILES ] [ REQUEST ]
      *  where MAP (default Map) contains the map data, OUT (default standard
      *  output) takes the result, and REQUEST (default standard input) contains
-     *  the locations along the requested trip.
+     *  the locations along the requested trip.  If BINMAP is given, the map
+     *  is also saved there in binary form, which may be given as MAP on
+     *  later runs to skip parsing and rebuilding the map.  If HIERARCHY is
+     *  given, routes are found with the contraction hierarchy saved there,
+     *  which is first built and saved if necessary.  If LANDMARKS is given,
+     *  that many landmarks are used to improve the distance estimates that
+     *  guide the search.  If ORDER is "open", the stops after the first are
+     *  visited in whatever order makes the trip shortest; if it is
+     *  "fixed", the same, except that the last stop stays last.  If MILES
+     *  is given, then instead of a trip, the locations within MILES miles
+     *  of each location in REQUEST are listed.
      */
     public static void main(String... rawArgs) {
         String mapFileName;
         String outFileName;
+        String binFileName;
+        String hierarchyFileName;
+        String landmarks;
+        String order;
+        String isochrone;
         List<String> targets;
         CommandArgs args =
-            new CommandArgs("-m={0,1} -o={0,1} --={2,}", rawArgs);
+            new CommandArgs("-m={0,1} -o={0,1} -b={0,1} -c={0,1} -l={0,1} "
+                            + "-r={0,1} -i={0,1} --={1,}", rawArgs);
 
         if (!args.ok()) {
             usage();
@@ -37,15 +54,50 @@ public final class Main {
 
         mapFileName = args.getFirst("-m", "Map");
         outFileName = args.getFirst("-o");
+        binFileName = args.getFirst("-b");
+        hierarchyFileName = args.getFirst("-c");
+        landmarks = args.getFirst("-l");
+        order = args.getFirst("-r");
+        isochrone = args.getFirst("-i");
         targets = args.get("--");
 
+        if (order != null && !order.equals("open")
+            && !order.equals("fixed")) {
+            usage();
+        }
+        if (isochrone == null && targets.size() < 2) {
+            usage();
+        }
+
         setFiles(outFileName);
 
         Trip trip = new Trip();
 
         try {
             trip.readMap(mapFileName);
-            trip.makeTrip(targets);
+            if (binFileName != null) {
+                trip.writeMap(binFileName);
+            }
+            if (hierarchyFileName != null) {
+                trip.useHierarchy(hierarchyFileName);
+            }
+            if (landmarks != null) {
+                trip.useLandmarks(Integer.parseInt(landmarks));
+            }
+            if (order != null) {
+                trip.reorderStops(order.equals("fixed"));
+            }
+            if (isochrone != null) {
+                double miles = Double.parseDouble(isochrone);
+                for (int i = 0; i < targets.size(); i += 1) {
+                    if (i > 0) {
+                        System.out.println();
+                    }
+                    trip.isochrone(targets.get(i), miles);
+                }
+            } else {
+                trip.makeTrip(targets);
+            }
         } catch (IllegalArgumentException excp) {
             System.err.printf("trip: %s%n", excp.getMessage());
             System.exit(1);
@@ -79,7 +131,9 @@ public final class Main {
     /** Print a brief usage message and exit program abnormally. */
     private static void usage() {
         System.err.printf("Usage: java trip.Main [ -m MAPFILE ] [ -o OUTFILE ]"
-                          + " [ REQUESTFILE ]%n");
+                          + " [ -b BINMAPFILE ] [ -c HIERARCHYFILE ]"
+                          + " [ -l LANDMARKS ] [ -r open|fixed ]"
+                          + " [ -i MILES ] [ REQUESTFILE ]%n");
         System.exit(1);
     }
 
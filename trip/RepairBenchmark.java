@@ -0,0 +1,120 @@
+package trip;
+
+import graph.DynamicShortestPaths;
+import graph.IntIteration;
+import graph.LabeledGraph;
+import graph.SimpleShortestPaths;
+import graph.WeightFunction;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** A timing of DynamicShortestPaths.repair against recomputing the shortest
+ *  paths from scratch after batches of road changes on a trip map.  Run as
+ *      java trip.RepairBenchmark MAP [ BATCHES [ SIZE ] ]
+ *  for the map in the file MAP (text or binary, as for trip.Main), with
+ *  BATCHES batches (default 200) of SIZE changed roads each (default 5).
+ *  Each change closes a road, lengthens it, or shortens it, chosen at
+ *  random.  After every batch, the repaired distances are checked against
+ *  the recomputed ones.
+ *  @author Nicholas Moy.
+ */
+public class RepairBenchmark {
+
+    /** Run the benchmark on the map and counts in ARGS. */
+    public static void main(String... args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java trip.RepairBenchmark MAP"
+                               + " [ BATCHES [ SIZE ] ]");
+            System.exit(1);
+        }
+        int batches = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Trip trip = new Trip();
+        trip.readMap(args[0]);
+        LabeledGraph<Location, Road> map = trip.map();
+        HashMap<Long, Double> scale = new HashMap<>();
+        WeightFunction weights = (u, v) ->
+            map.getLabel(u, v).length() * scale.getOrDefault(key(u, v), 1.0);
+        Random rand = new Random(SEED);
+        int source = randomVertex(map, rand);
+
+        DynamicShortestPaths dyn =
+            new DynamicShortestPaths(map, weights, source);
+        long repairTime, fullTime;
+        repairTime = fullTime = 0;
+        long settled;
+        settled = 0;
+        for (int b = 0; b < batches; b += 1) {
+            for (int k = 0; k < size; k += 1) {
+                int u = randomVertex(map, rand);
+                if (map.outDegree(u) == 0) {
+                    continue;
+                }
+                IntIteration succ = map.successorsInt(u);
+                int v = succ.nextInt();
+                for (int i = rand.nextInt(map.outDegree(u)); i > 0; i -= 1) {
+                    v = succ.nextInt();
+                }
+                double factor;
+                switch (rand.nextInt(3)) {
+                case 0:
+                    factor = Double.POSITIVE_INFINITY;
+                    break;
+                case 1:
+                    factor = 1 + 2 * rand.nextDouble();
+                    break;
+                default:
+                    factor = 0.5 + 0.5 * rand.nextDouble();
+                    break;
+                }
+                scale.put(key(u, v), factor);
+                dyn.edgeChanged(u, v);
+            }
+            long start = System.nanoTime();
+            settled += dyn.repair();
+            repairTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            SimpleShortestPaths full = new SimpleShortestPaths(map, source) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return weights.weight(u, v);
+                }
+            };
+            full.setPaths();
+            fullTime += System.nanoTime() - start;
+            for (int v : map.vertices()) {
+                if (full.getWeight(v) != dyn.getWeight(v)) {
+                    throw new AssertionError("weights differ at " + v);
+                }
+            }
+            full.release();
+        }
+        System.out.printf("%d locations, %d roads, %d batches of %d%n",
+                          map.vertexSize(), map.edgeSize(), batches, size);
+        System.out.printf("repair:    %10.3f ms/batch, %.1f locations"
+                          + " settled%n", repairTime / 1e6 / batches,
+                          (double) settled / batches);
+        System.out.printf("recompute: %10.3f ms/batch%n",
+                          fullTime / 1e6 / batches);
+    }
+
+    /** Returns a key for the road from U to V. */
+    private static long key(int u, int v) {
+        return (long) u << 32 | v;
+    }
+
+    /** Returns a random location in MAP, chosen using RAND. */
+    private static int randomVertex(LabeledGraph<Location, Road> map,
+                                    Random rand) {
+        int v;
+        do {
+            v = 1 + rand.nextInt(map.maxVertex());
+        } while (!map.contains(v));
+        return v;
+    }
+
+    /** Seed for random choices, so that runs are reproducible. */
+    private static final long SEED = 21;
+}
@@ -1,5 +1,9 @@
 package trip;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import static trip.Main.error;
 
 /** Represents a road between two Locations.
@@ -18,6 +22,19 @@ class Road {
         _length = length;
     }
 
+    /** Returns a Road read from IN, as written by writeTo. */
+    static Road readFrom(DataInput in) throws IOException {
+        return new Road(in.readUTF(), Direction.parse(in.readUTF()),
+                        in.readDouble());
+    }
+
+    /** Write me to OUT. */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(_name);
+        out.writeUTF(_direction.name());
+        out.writeDouble(_length);
+    }
+
     /** Return the direction of this road. */
     Direction direction() {
         return _direction;
@@ -0,0 +1,176 @@
+package trip;
+
+import java.util.Arrays;
+
+/** Heuristic orderings of the stops on a trip.  Given a matrix of
+ *  distances between stops, order finds a short route through all of them
+ *  from a fixed first stop (and optionally to a fixed last stop): it
+ *  starts from the nearest-neighbor route and improves it by 2-opt moves
+ *  (reversing a stretch of the route) and Or-opt moves (moving a run of
+ *  up to three stops elsewhere) until neither helps or a time budget runs
+ *  out.  Distances need not be symmetric, and may be infinite where there
+ *  is no route.
+ *  @author Nicholas Moy.
+ */
+class Tour {
+
+    /** Returns an ordering of the stops 0 .. D.length-1, where D[a][b] is
+     *  the distance from stop a to stop b, that begins with 0 and, if
+     *  FIXEDEND, ends with D.length-1, chosen to make the total distance
+     *  small.  Spends at most about BUDGET nanoseconds improving it. */
+    static int[] order(double[][] d, boolean fixedEnd, long budget) {
+        return new Tour(d, fixedEnd, budget).improve();
+    }
+
+    /** A tour over D, as for order(D, FIXEDEND, BUDGET), initially the
+     *  nearest-neighbor route. */
+    private Tour(double[][] d, boolean fixedEnd, long budget) {
+        _d = d;
+        _n = d.length;
+        _deadline = System.nanoTime() + budget;
+        _last = fixedEnd && _n > 1 ? _n - 2 : _n - 1;
+        _tour = new int[_n];
+        boolean[] used = new boolean[_n];
+        used[0] = true;
+        if (_last < _n - 1) {
+            _tour[_n - 1] = _n - 1;
+            used[_n - 1] = true;
+        }
+        for (int i = 1; i <= _last; i += 1) {
+            int prev = _tour[i - 1], best;
+            best = -1;
+            for (int s = 0; s < _n; s += 1) {
+                if (!used[s] && (best == -1 || d[prev][s] < d[prev][best])) {
+                    best = s;
+                }
+            }
+            _tour[i] = best;
+            used[best] = true;
+        }
+    }
+
+    /** Apply improving moves until none is found or time runs out, and
+     *  return the resulting route. */
+    private int[] improve() {
+        boolean improved;
+        do {
+            improved = twoOpt() | orOpt();
+        } while (improved && !expired());
+        return _tour;
+    }
+
+    /** Returns true iff the time budget is spent. */
+    private boolean expired() {
+        return System.nanoTime() - _deadline > 0;
+    }
+
+    /** Returns the distance from stop A to stop B, or 0 if B is -1 (the
+     *  open end of the route). */
+    private double dist(int a, int b) {
+        return b < 0 ? 0.0 : _d[a][b];
+    }
+
+    /** Returns the stop at position I of the route, or -1 if I is past
+     *  its end. */
+    private int at(int i) {
+        return i < _n ? _tour[i] : -1;
+    }
+
+    /** Make every improving 2-opt move found in one pass over the movable
+     *  part of the route.  Returns true iff there was one. */
+    private boolean twoOpt() {
+        boolean improved;
+        improved = false;
+        for (int i = 1; i < _last && !expired(); i += 1) {
+            double forward, backward;
+            forward = backward = 0;
+            for (int j = i + 1; j <= _last; j += 1) {
+                forward += _d[_tour[j - 1]][_tour[j]];
+                backward += _d[_tour[j]][_tour[j - 1]];
+                int a = _tour[i - 1], b = at(j + 1);
+                double before = _d[a][_tour[i]] + forward
+                    + dist(_tour[j], b),
+                    after = _d[a][_tour[j]] + backward + dist(_tour[i], b);
+                if (after < before - EPSILON) {
+                    reverse(i, j);
+                    improved = true;
+                    forward = backward = 0;
+                    for (int k = i + 1; k <= j; k += 1) {
+                        forward += _d[_tour[k - 1]][_tour[k]];
+                        backward += _d[_tour[k]][_tour[k - 1]];
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Make every improving Or-opt move found in one pass: moving a run of
+     *  1 to MAX_RUN consecutive stops to another place in the route
+     *  without reversing it.  Returns true iff there was one. */
+    private boolean orOpt() {
+        boolean improved;
+        improved = false;
+        for (int len = 1; len <= MAX_RUN; len += 1) {
+            for (int i = 1; i + len - 1 <= _last && !expired(); i += 1) {
+                int j = i + len - 1;
+                int a = _tour[i - 1], b = at(j + 1),
+                    first = _tour[i], last = _tour[j];
+                double gain = _d[a][first] + dist(last, b) - dist(a, b);
+                for (int k = 0; k <= _last; k += 1) {
+                    if (k >= i - 1 && k <= j) {
+                        continue;
+                    }
+                    int p = _tour[k], q = at(k + 1);
+                    double cost = _d[p][first] + dist(last, q) - dist(p, q);
+                    if (cost < gain - EPSILON) {
+                        move(i, j, k);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Reverse the stops at positions I .. J of the route. */
+    private void reverse(int i, int j) {
+        for (; i < j; i += 1, j -= 1) {
+            int t = _tour[i];
+            _tour[i] = _tour[j];
+            _tour[j] = t;
+        }
+    }
+
+    /** Move the stops at positions I .. J of the route to just after the
+     *  stop now at position K, which is outside I-1 .. J. */
+    private void move(int i, int j, int k) {
+        int[] run = Arrays.copyOfRange(_tour, i, j + 1);
+        int len = run.length;
+        if (k > j) {
+            System.arraycopy(_tour, j + 1, _tour, i, k - j);
+            System.arraycopy(run, 0, _tour, k - len + 1, len);
+        } else {
+            System.arraycopy(_tour, k + 1, _tour, k + 1 + len, i - k - 1);
+            System.arraycopy(run, 0, _tour, k + 1, len);
+        }
+    }
+
+    /** Longest run of stops moved by an Or-opt move. */
+    private static final int MAX_RUN = 3;
+    /** Smallest improvement taken, which keeps rounding errors from
+     *  causing endless moves. */
+    private static final double EPSILON = 1e-9;
+
+    /** Distances between stops. */
+    private final double[][] _d;
+    /** Number of stops. */
+    private final int _n;
+    /** Position of the last stop that may move. */
+    private final int _last;
+    /** Value of System.nanoTime() at which to stop improving. */
+    private final long _deadline;
+    /** The route: stop numbers in order. */
+    private final int[] _tour;
+}
@@ -1,18 +1,31 @@
 package trip;
 
-import graph.DirectedGraph;
+import graph.ContractionHierarchy;
+import graph.DistanceMatrix;
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.GraphFile;
+import graph.LabelCodec;
 import graph.LabeledGraph;
+import graph.Landmarks;
 import graph.SimpleShortestPaths;
 
 import java.util.Scanner;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.InputMismatchException;
 import java.util.NoSuchElementException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static trip.Main.error;
 
@@ -22,8 +35,16 @@ import static trip.Main.error;
  */
 class Trip {
 
-    /** Read map file named NAME into out map graph. */
+    /** Read map file named NAME into out map graph.  NAME may be either
+     *  a text map or a file written by writeMap. */
     void readMap(String name) {
+        if (GraphFile.isGraphFile(name)) {
+            loadMap(name);
+            return;
+        }
+        _builder = new GraphBuilder();
+        _locations = new ArrayList<>();
+        _roads = new ArrayList<>();
         int n;
         n = 0;
         try {
@@ -52,35 +73,230 @@ class Trip {
         } catch (NullPointerException excp) {
             error("error null pointer bruh");
         }
+        RoadMap map = new RoadMap(_builder.directed());
+        _builder.label(map, _locations, _roads);
+        _builder = null;
+        _locations = null;
+        _roads = null;
+        _map = new RoadMap(map);
+    }
+
+    /** Returns the map read by readMap. */
+    LabeledGraph<Location, Road> map() {
+        return _map;
+    }
+
+    /** Save the map read by readMap in the binary file named NAME, which
+     *  readMap can then open without rebuilding the map. */
+    void writeMap(String name) {
+        try {
+            GraphFile.write(_map, name, CODEC);
+        } catch (IOException excp) {
+            error("could not write %s: %s", name, excp.getMessage());
+        }
+    }
+
+    /** Sharpen the distance estimates used to route trips with K
+     *  landmarks on the current map. */
+    void useLandmarks(int k) {
+        _landmarks = new Landmarks(_map, this::roadLength, k);
+    }
+
+    /** Route trips with the contraction hierarchy for the current map saved
+     *  in the file named NAME, first building and saving it there if the
+     *  file does not exist, cannot be read (as when it has an older
+     *  format), or was made for a different map or different road
+     *  lengths. */
+    void useHierarchy(String name) {
+        if (new File(name).exists()) {
+            try {
+                _hierarchy = ContractionHierarchy.read(name);
+                if (_hierarchy.fits(_map, this::roadLength)) {
+                    return;
+                }
+            } catch (IOException excp) {
+                /* Rebuild it below. */
+            }
+        }
+        try {
+            _hierarchy = new ContractionHierarchy(_map, this::roadLength);
+            _hierarchy.write(name);
+        } catch (IOException excp) {
+            error("could not use hierarchy %s: %s", name, excp.getMessage());
+        }
+    }
+
+    /** Route the legs of trips on POOL (initially the common pool). */
+    void setPool(ForkJoinPool pool) {
+        _pool = pool;
+    }
+
+    /** Open the binary map file named NAME, as written by writeMap.  Its
+     *  labels and its index of location names stay in the file until
+     *  needed, so this takes time independent of the size of the map. */
+    private void loadMap(String name) {
+        try {
+            _map = GraphFile.open(name, CODEC);
+        } catch (IOException excp) {
+            error("could not read %s: %s", name, excp.getMessage());
+        }
+    }
+
+    /** Returns the vertex of the location named NAME, or null if there is
+     *  none. */
+    private Integer site(String name) {
+        Integer v = _sites.get(name);
+        if (v == null) {
+            int w = _map.findVertex(name);
+            v = w == 0 ? null : w;
+        }
+        return v;
+    }
+
+    /** Visit the stops of each trip in the order that makes it shortest
+     *  (approximately), rather than in the order given, keeping the first
+     *  stop first and, if FIXEDEND, the last stop last.  Repeated stops
+     *  are visited once. */
+    void reorderStops(boolean fixedEnd) {
+        _reorder = true;
+        _fixedEnd = fixedEnd;
     }
 
     /** Produce a report on the standard output of a shortest journey from
-     *  DESTS.get(0), then DESTS.get(1), .... */
+     *  DESTS.get(0), then DESTS.get(1), ..., or through all of DESTS in the
+     *  best order found if reorderStops has been called.  Each distinct leg
+     *  is routed once, and the legs are routed in parallel on the pool
+     *  given to setPool, except with a contraction hierarchy, whose
+     *  queries share working storage and so run one at a time.  Legs not
+     *  yet routed are cancelled if the trip fails. */
     void makeTrip(List<String> dests) {
         if (dests.size() < 2) {
             error("must have at least two locations for a trip");
         }
+        if (_reorder && dests.size() > 2) {
+            dests = reorder(dests);
+        }
 
         System.out.printf("From %s:%n%n", dests.get(0));
-        int step;
 
+        Integer[] sites = new Integer[dests.size()];
+        for (int i = 0; i < sites.length; i += 1) {
+            sites[i] = site(dests.get(i));
+        }
+        HashMap<List<Integer>, ForkJoinTask<List<Integer>>> legs =
+            new HashMap<>();
+        for (int i = 1; i < sites.length; i += 1) {
+            Integer from = sites[i - 1], to = sites[i];
+            if (from != null && to != null
+                && !legs.containsKey(List.of(from, to))) {
+                ForkJoinTask<List<Integer>> leg =
+                    ForkJoinTask.adapt(() -> route(from, to));
+                legs.put(List.of(from, to), leg);
+            }
+        }
+        boolean parallel = _hierarchy == null && legs.size() > 1;
+        if (parallel) {
+            legs.values().forEach(_pool::execute);
+        }
+
+        int step;
         step = 1;
-        for (int i = 1; i < dests.size(); i += 1) {
-            Integer
-                from = _sites.get(dests.get(i - 1)),
-                to = _sites.get(dests.get(i));
-            if (from == null) {
-                error("No location named %s", dests.get(i - 1));
-            } else if (to == null) {
-                error("No location named %s", dests.get(i));
+        try {
+            for (int i = 1; i < sites.length; i += 1) {
+                Integer from = sites[i - 1], to = sites[i];
+                if (from == null) {
+                    error("No location named %s", dests.get(i - 1));
+                } else if (to == null) {
+                    error("No location named %s", dests.get(i));
+                }
+                ForkJoinTask<List<Integer>> leg = legs.get(List.of(from, to));
+                List<Integer> segment = parallel ? leg.join() : leg.invoke();
+                if (segment == null) {
+                    error("no route from %s to %s", dests.get(i - 1),
+                          dests.get(i));
+                }
+                step = reportSegment(step, from, segment);
+            }
+        } catch (RuntimeException excp) {
+            for (ForkJoinTask<List<Integer>> leg : legs.values()) {
+                leg.cancel(false);
             }
-            TripPlan plan = new TripPlan(from, to);
-            plan.setPaths();
-            List<Integer> segment = plan.pathTo(to);
-            step = reportSegment(step, from, segment);
+            throw excp;
         }
     }
 
+    /** Produce a report on the standard output of the locations within
+     *  MILES miles of the location named NAME by road, nearest first. */
+    void isochrone(String name, double miles) {
+        Integer start = site(name);
+        if (start == null) {
+            error("No location named %s", name);
+        }
+        TripPlan plan = new TripPlan(start);
+        plan.setBound(miles);
+        plan.setPaths();
+        int[] reached = plan.reachedVertices();
+        double[] dist = plan.reachedWeights();
+        plan.release();
+
+        System.out.printf("Within %.1f miles of %s:%n%n", miles, name);
+        for (int i = 1; i < reached.length; i += 1) {
+            System.out.printf("%d. %s, %.1f miles.%n", i,
+                              _map.getLabel(reached[i]), dist[i]);
+        }
+    }
+
+    /** Returns a shortest path from FROM to TO as a list of vertices, or
+     *  null if the contraction hierarchy finds none. */
+    private List<Integer> route(int from, int to) {
+        if (_hierarchy != null) {
+            return _hierarchy.path(from, to);
+        }
+        TripPlan plan = new TripPlan(from, to);
+        plan.setPaths();
+        List<Integer> segment = plan.pathTo(to);
+        plan.release();
+        return segment;
+    }
+
+    /** Returns the names in DESTS, without repetitions, in an order that
+     *  makes a short trip from DESTS.get(0) (and to the last of DESTS, if
+     *  the end is fixed). */
+    private List<String> reorder(List<String> dests) {
+        String start = dests.get(0), end = dests.get(dests.size() - 1);
+        LinkedHashSet<String> middle = new LinkedHashSet<>(dests);
+        middle.remove(start);
+        if (_fixedEnd) {
+            middle.remove(end);
+        }
+        List<String> names = new ArrayList<>();
+        names.add(start);
+        names.addAll(middle);
+        if (_fixedEnd) {
+            names.add(end);
+        }
+        int[] stops = new int[names.size()];
+        for (int i = 0; i < stops.length; i += 1) {
+            Integer v = site(names.get(i));
+            if (v == null) {
+                error("No location named %s", names.get(i));
+            }
+            stops[i] = v;
+        }
+        double[][] dist =
+            new DistanceMatrix(_map, this::roadLength).compute(stops, stops);
+        List<String> result = new ArrayList<>();
+        for (int i : Tour.order(dist, _fixedEnd, TOUR_BUDGET)) {
+            result.add(names.get(i));
+        }
+        return result;
+    }
+
+    /** Returns the length of the road from U to V. */
+    private double roadLength(int u, int v) {
+        return _map.getLabel(u, v).length();
+    }
+
     /** Print out a written description of the location sequence SEGMENT,
      *  starting at FROM, and numbering the lines of the description starting
      *  at SEQ.  That is, FROM and each item in SEGMENT are the
@@ -136,7 +352,8 @@ class Trip {
         if (_sites.containsKey(name)) {
             error("multiple entries for %s", name);
         }
-        int v = _map.add(new Location(name, x, y));
+        int v = _builder.addVertex();
+        _locations.add(new Location(name, x, y));
         _sites.put(name, v);
     }
 
@@ -155,21 +372,84 @@ class Trip {
             error("location %s not defined", to);
         }
 
-        _map.add(v0, v1, new Road(name, dir, length));
-        _map.add(v1, v0, new Road(name, dir.reverse(), length));
+        _builder.addEdge(v0, v1);
+        _roads.add(new Road(name, dir, length));
+        _builder.addEdge(v1, v0);
+        _roads.add(new Road(name, dir.reverse(), length));
     }
 
+    /** Converts Locations and Roads to and from bytes in map files. */
+    private static final LabelCodec<Location, Road> CODEC =
+        new LabelCodec<Location, Road>() {
+            @Override
+            public void writeVertexLabel(Location lab, DataOutput out)
+                throws IOException {
+                lab.writeTo(out);
+            }
+
+            @Override
+            public Location readVertexLabel(DataInput in) throws IOException {
+                return Location.readFrom(in);
+            }
+
+            @Override
+            public void writeEdgeLabel(Road lab, DataOutput out)
+                throws IOException {
+                lab.writeTo(out);
+            }
+
+            @Override
+            public Road readEdgeLabel(DataInput in) throws IOException {
+                return Road.readFrom(in);
+            }
+
+            @Override
+            public String vertexKey(Location lab) {
+                return lab.toString();
+            }
+        };
+
+    /** Time allowed for improving the order of stops, in nanoseconds. */
+    private static final long TOUR_BUDGET = 250_000_000L;
+
     /** Represents the network of Locations and Roads. */
-    private RoadMap _map = new RoadMap();
-    /** Mapping of Location names to corresponding map vertices. */
+    private LabeledGraph<Location, Road> _map;
+    /** Contraction hierarchy used to route trips, or null to use
+     *  TripPlans. */
+    private ContractionHierarchy _hierarchy;
+    /** True iff trips visit their stops in the best order found. */
+    private boolean _reorder;
+    /** True iff reordered trips keep their last stop last. */
+    private boolean _fixedEnd;
+    /** Pool on which the legs of a trip are routed. */
+    private ForkJoinPool _pool = ForkJoinPool.commonPool();
+    /** Landmarks whose bounds supplement straight-line distance in
+     *  TripPlans, or null. */
+    private Landmarks _landmarks;
+    /** Collects the vertices and edges of _map while a map is read, and
+     *  is null otherwise. */
+    private GraphBuilder _builder;
+    /** Labels of the vertices added to _builder, in order, while a map is
+     *  read. */
+    private ArrayList<Location> _locations;
+    /** Labels of the edges added to _builder, in order, while a map is
+     *  read. */
+    private ArrayList<Road> _roads;
+    /** Mapping of Location names to corresponding map vertices, for maps
+     *  read from text (binary maps keep their own index). */
     private HashMap<String, Integer> _sites = new HashMap<>();
 
     /** A labeled directed graph of Locations whose edges are labeled by
      *  Roads. */
     private static class RoadMap extends LabeledGraph<Location, Road> {
-        /** An empty RoadMap. */
-        RoadMap() {
-            super(new DirectedGraph());
+        /** A RoadMap on the graph G, initially unlabeled. */
+        RoadMap(Graph G) {
+            super(G);
+        }
+
+        /** A read-only copy of MAP, frozen for fast queries. */
+        RoadMap(RoadMap map) {
+            super(map.freeze(), map);
         }
     }
 
@@ -178,7 +458,10 @@ class Trip {
         /** A plan for travel from START to DEST according to _map. */
         TripPlan(int start, int dest) {
             super(_map, start, dest);
+            _startLocation = _map.getLabel(start);
             _finalLocation = _map.getLabel(dest);
+            setMemoizeEstimates(true);
+            setBidirectional(true);
         }
 
         @Override
@@ -186,12 +469,38 @@ class Trip {
             return _map.getLabel(u, v).length();
         }
 
+        /** A plan for travel from START to every location it reaches,
+         *  according to _map. */
+        TripPlan(int start) {
+            super(_map, start);
+            _startLocation = _map.getLabel(start);
+            _finalLocation = null;
+        }
+
         @Override
         protected double estimatedDistance(int v) {
-            return _map.getLabel(v).dist(_finalLocation);
+            if (_finalLocation == null) {
+                return 0.0;
+            }
+            double h = _map.getLabel(v).dist(_finalLocation);
+            if (_landmarks != null) {
+                h = Math.max(h, _landmarks.estimate(v, getDest()));
+            }
+            return h;
+        }
+
+        @Override
+        protected double estimatedDistanceFromSource(int v) {
+            double h = _map.getLabel(v).dist(_startLocation);
+            if (_landmarks != null) {
+                h = Math.max(h, _landmarks.estimate(getSource(), v));
+            }
+            return h;
         }
 
-        /** Location of the destination. */
+        /** Location of the start. */
+        private final Location _startLocation;
+        /** Location of the destination, or null if there is none. */
         private final Location _finalLocation;
 
     }
@@ -7,6 +7,17 @@ package trip;
 
 import org.junit.Test;
 import ucb.junit.textui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.Assert.*;
 
 /** Unit tests for the trip package. */
@@ -21,4 +32,184 @@ public class UnitTest {
     public void dummyTest() {
     }
 
+    /** Tests that Tour.order gives valid routes that keep the first (and,
+     *  if asked, the last) stop in place, and come within 5% of the best
+     *  route for small random sets of points. */
+    @Test
+    public void testTourOrder() {
+        Random rand = new Random(20);
+        for (int trial = 0; trial < 20; trial += 1) {
+            int n = 3 + rand.nextInt(5);
+            double[] x = new double[n], y = new double[n];
+            for (int i = 0; i < n; i += 1) {
+                x[i] = rand.nextDouble();
+                y[i] = rand.nextDouble();
+            }
+            double[][] d = new double[n][n];
+            for (int i = 0; i < n; i += 1) {
+                for (int j = 0; j < n; j += 1) {
+                    d[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]);
+                }
+            }
+            for (boolean fixedEnd : new boolean[] { false, true }) {
+                int[] order = Tour.order(d, fixedEnd, 1_000_000_000L);
+                int[] sorted = order.clone();
+                Arrays.sort(sorted);
+                for (int i = 0; i < n; i += 1) {
+                    assertEquals(i, sorted[i]);
+                }
+                assertEquals(0, order[0]);
+                if (fixedEnd) {
+                    assertEquals(n - 1, order[n - 1]);
+                }
+                double best = bestLength(d, order.clone(), 1, fixedEnd);
+                assertTrue(length(d, order) <= 1.05 * best + 1e-9);
+            }
+        }
+    }
+
+    /** Tests that routing the legs of a trip in parallel, with repeated
+     *  legs, gives the same report as routing them one at a time as
+     *  separate one-leg trips, and that a bad name mid-trip is still
+     *  reported. */
+    @Test
+    public void testParallelLegs() throws IOException {
+        final int side = 12;
+        File map = File.createTempFile("grid", ".map");
+        map.deleteOnExit();
+        Random rand = new Random(23);
+        try (PrintWriter out = new PrintWriter(map)) {
+            for (int i = 0; i < side * side; i += 1) {
+                out.printf("L P%d %d %d%n", i, i % side, i / side);
+            }
+            for (int i = 0; i < side * side; i += 1) {
+                if (i % side + 1 < side) {
+                    out.printf("R P%d Ave%d %.2f EW P%d%n", i, i / side,
+                               1 + rand.nextDouble(), i + 1);
+                }
+                if (i + side < side * side) {
+                    out.printf("R P%d St%d %.2f NS P%d%n", i, i % side,
+                               1 + rand.nextDouble(), i + side);
+                }
+            }
+        }
+        List<String> dests =
+            List.of("P0", "P143", "P7", "P0", "P143", "P60", "P11", "P132");
+        ForkJoinPool four = new ForkJoinPool(4);
+
+        StringBuilder expected = new StringBuilder("From P0:\n\n");
+        int step;
+        step = 1;
+        for (int i = 1; i < dests.size(); i += 1) {
+            String leg = report(map, dests.subList(i - 1, i + 1), four);
+            for (String line : leg.split("\n")) {
+                if (line.matches("\\d+\\. .*")) {
+                    expected.append(step).append(line.substring(
+                                        line.indexOf('.'))).append("\n");
+                    step += 1;
+                }
+            }
+        }
+        String actual = report(map, dests, four);
+        assertEquals(expected.toString(),
+                     actual.replace(System.lineSeparator(), "\n"));
+        assertTrue(step > dests.size());
+
+        try {
+            report(map, List.of("P0", "Nowhere", "P143", "P7", "P60"),
+                   four);
+            fail("bad location accepted");
+        } catch (IllegalArgumentException excp) {
+            assertEquals("No location named Nowhere", excp.getMessage());
+        }
+        four.shutdown();
+    }
+
+    /** Tests that the report of the locations within MILES of a start
+     *  lists them nearest first, leaves out the start, and includes a
+     *  location exactly MILES away but not one just beyond it. */
+    @Test
+    public void testIsochrone() throws IOException {
+        File map = File.createTempFile("iso", ".map");
+        map.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(map)) {
+            out.println("L A 0 0");
+            out.println("L B 1 0");
+            out.println("L C 2 0");
+            out.println("L D 3 0");
+            out.println("L E 0 1");
+            out.println("L G 2 1");
+            out.println("R A Main 1.5 EW B");
+            out.println("R B Main 1.5 EW C");
+            out.println("R C Main 2.0 EW D");
+            out.println("R A Elm 0.5 NS E");
+            out.println("R E Elm 3.0 EW C");
+            out.println("R C Oak 0.25 NS G");
+        }
+        Trip trip = new Trip();
+        trip.readMap(map.getPath());
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            trip.isochrone("A", 3.0);
+        } finally {
+            System.setOut(stdout);
+        }
+        assertEquals("Within 3.0 miles of A:\n\n"
+                     + "1. E, 0.5 miles.\n"
+                     + "2. B, 1.5 miles.\n"
+                     + "3. C, 3.0 miles.\n",
+                     bytes.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    /** Returns the report of a trip through DESTS on the map in MAP, with
+     *  its legs routed on POOL. */
+    private static String report(File map, List<String> dests,
+                                 ForkJoinPool pool) {
+        Trip trip = new Trip();
+        trip.readMap(map.getPath());
+        trip.setPool(pool);
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true));
+        try {
+            trip.makeTrip(dests);
+        } finally {
+            System.setOut(stdout);
+        }
+        return bytes.toString();
+    }
+
+    /** Returns the length of the route ORDER under distances D. */
+    private static double length(double[][] d, int[] order) {
+        double total;
+        total = 0;
+        for (int i = 1; i < order.length; i += 1) {
+            total += d[order[i - 1]][order[i]];
+        }
+        return total;
+    }
+
+    /** Returns the length of the shortest route under distances D that
+     *  agrees with ORDER in positions before K, permuting the rest (except
+     *  the last, if FIXEDEND). */
+    private static double bestLength(double[][] d, int[] order, int k,
+                                     boolean fixedEnd) {
+        int end = fixedEnd ? order.length - 1 : order.length;
+        if (k >= end) {
+            return length(d, order);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = k; i < end; i += 1) {
+            int t = order[k];
+            order[k] = order[i];
+            order[i] = t;
+            best = Math.min(best, bestLength(d, order, k + 1, fixedEnd));
+            order[i] = order[k];
+            order[k] = t;
+        }
+        return best;
+    }
+
 }